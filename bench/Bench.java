@@ -0,0 +1,263 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Benchmarks for the simulator, tape and loader, run with `make bench`.
+//
+// Measured the way JMH measures: every benchmark runs in a fresh JVM so
+// one cannot warm up or pollute the JIT profile of another, untimed warmup
+// iterations let compilation settle, then each timed iteration runs the
+// benchmark for a fixed time and reports the average time per operation.
+// Scores are given with a 99.9% confidence interval over the iterations of
+// every fork. Inputs come from fixed seeds, so every run measures the same
+// work. (JMH itself cannot run these: it refuses benchmarks in the default
+// package, and nothing outside the default package can use its classes.)
+//
+// Usage: java Bench [-f forks] [-wi warmups] [-i iterations] [-r seconds] [-l] [regex]
+// The regex picks benchmarks by name and parameters, -l lists them.
+public final class Bench {
+    // The measured operation, set up for one benchmark and parameter set
+    public interface Workload {
+        // Do the operation n times. Returns something depending on every
+        // result so the JIT cannot throw the work away.
+        long run(int n) throws Exception;
+    }
+
+    public interface Setup {
+        Workload create() throws Exception;
+    }
+
+    private static final class Case {
+        final String name;
+        final String params;
+        final Setup setup;
+
+        Case(String name, String params, Setup setup) {
+            this.name = name;
+            this.params = params;
+            this.setup = setup;
+        }
+
+        String id() {
+            return params.isEmpty() ? name : name + ":" + params;
+        }
+    }
+
+    // Benchmarks add themselves here, see register() in each *Bench class
+    public static final class Suite {
+        private final ArrayList<Case> cases = new ArrayList<>();
+
+        public void add(String name, String params, Setup setup) {
+            cases.add(new Case(name, params, setup));
+        }
+    }
+
+    private static final String SCORE = "score ";
+
+    // Results fed back here so no workload's result is ever unused
+    private static long sink;
+
+    private static List<Case> cases() {
+        Suite suite = new Suite();
+        TransitionBench.register(suite);
+        TapeBench.register(suite);
+        RunBench.register(suite);
+        LoadBench.register(suite);
+        return suite.cases;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int forks = 1;
+        int warmups = 5;
+        int iterations = 5;
+        double seconds = 1;
+        boolean list = false;
+        String child = null;
+        Pattern filter = Pattern.compile("");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-f") && i + 1 < args.length)
+                forks = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-wi") && i + 1 < args.length)
+                warmups = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-i") && i + 1 < args.length)
+                iterations = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-r") && i + 1 < args.length)
+                seconds = Double.parseDouble(args[++i]);
+            else if (args[i].equals("-l"))
+                list = true;
+            else if (args[i].equals("--fork") && i + 1 < args.length)
+                child = args[++i];
+            else if (args[i].startsWith("-")) {
+                System.err.println("Usage: Bench [-f forks] [-wi warmups] [-i iterations] [-r seconds] [-l] [regex]");
+                System.exit(2);
+            }
+            else
+                filter = Pattern.compile(args[i]);
+        }
+        long iterationNanos = (long) (seconds * 1e9);
+
+        ArrayList<Case> chosen = new ArrayList<>();
+        for (Case c : cases()) {
+            if (child != null ? c.id().equals(child) : filter.matcher(c.id()).find())
+                chosen.add(c);
+        }
+        if (list) {
+            for (Case c : chosen)
+                System.out.println(c.id());
+            return;
+        }
+        if (child != null) {
+            if (chosen.isEmpty())
+                throw new IllegalArgumentException("No benchmark " + child);
+            measure(chosen.get(0), warmups, iterations, iterationNanos);
+            return;
+        }
+
+        System.out.printf("# JVM: %s %s%n", System.getProperty("java.vm.name"), System.getProperty("java.version"));
+        System.out.printf("# %d fork(s), %d warmup and %d measurement iterations of %s s each%n",
+                forks, warmups, iterations, seconds);
+
+        ArrayList<String> rows = new ArrayList<>();
+        for (Case c : chosen) {
+            System.out.printf("%n# Benchmark: %s%n", c.id());
+            ArrayList<Double> scores = new ArrayList<>();
+            for (int f = 0; f < forks; f++) {
+                System.out.printf("# Fork %d of %d%n", f + 1, forks);
+                fork(c, warmups, iterations, seconds, scores);
+            }
+            if (forks == 0)
+                scores.addAll(measure(c, warmups, iterations, iterationNanos));
+            rows.add(summarize(c, scores));
+        }
+
+        System.out.printf("%n%-36s %-28s %5s %16s   %14s  %s%n", "Benchmark", "(params)", "Cnt", "Score", "Error", "Units");
+        for (String row : rows)
+            System.out.println(row);
+    }
+
+    // Run one benchmark in a new JVM with the same classpath and heap,
+    // echoing its progress and collecting its scores
+    private static void fork(Case c, int warmups, int iterations, double seconds, List<Double> scores)
+            throws IOException, InterruptedException {
+        ArrayList<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-Xmx" + (Runtime.getRuntime().maxMemory() >> 20) + "m");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Bench.class.getName());
+        command.add("--fork");
+        command.add(c.id());
+        command.add("-wi");
+        command.add(Integer.toString(warmups));
+        command.add("-i");
+        command.add(Integer.toString(iterations));
+        command.add("-r");
+        command.add(Double.toString(seconds));
+
+        Process p = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith(SCORE))
+                    scores.add(Double.parseDouble(line.substring(SCORE.length())));
+                else
+                    System.out.println(line);
+            }
+        }
+        if (p.waitFor() != 0)
+            throw new IllegalStateException(c.id() + " failed in its fork");
+    }
+
+    // Warm up, then time each iteration. The batch size is picked once so
+    // every iteration does the same amount of work between clock reads.
+    private static List<Double> measure(Case c, int warmups, int iterations, long iterationNanos) throws Exception {
+        Workload w = c.setup.create();
+
+        int batch = 1;
+        while (batch < (1 << 30)) {
+            long start = System.nanoTime();
+            sink += w.run(batch);
+            if (System.nanoTime() - start > 1000000)
+                break;
+            batch *= 2;
+        }
+
+        ArrayList<Double> scores = new ArrayList<>();
+        for (int i = 0; i < warmups + iterations; i++) {
+            long ops = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                sink += w.run(batch);
+                ops += batch;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < iterationNanos);
+
+            double score = (double) elapsed / ops;
+            boolean warmup = i < warmups;
+            System.out.printf(Locale.ROOT, "# %s Iteration %d: %.3f ns/op%n",
+                    warmup ? "Warmup" : "Measurement", warmup ? i + 1 : i - warmups + 1, score);
+            if (!warmup) {
+                scores.add(score);
+                System.out.printf(Locale.ROOT, "%s%s%n", SCORE, Double.toString(score));
+            }
+        }
+        System.out.printf("# (sink %d)%n", sink);
+        return scores;
+    }
+
+    private static String summarize(Case c, List<Double> scores) {
+        int n = scores.size();
+        double mean = 0;
+        for (double s : scores)
+            mean += s;
+        mean /= n;
+        double error = Double.NaN;
+        if (n > 1) {
+            double variance = 0;
+            for (double s : scores)
+                variance += (s - mean) * (s - mean);
+            variance /= n - 1;
+            error = studentT999(n - 1) * Math.sqrt(variance / n);
+        }
+        return String.format(Locale.ROOT, "%-36s %-28s %5d %16.3f +- %14.3f  ns/op", c.name, c.params, n, mean, error);
+    }
+
+    // Two sided 99.9% critical values of Student's t distribution
+    private static final double[] T999 = {
+            636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+            4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+            3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646 };
+
+    private static double studentT999(int degrees) {
+        if (degrees <= T999.length)
+            return T999[degrees - 1];
+        if (degrees <= 40)
+            return 3.551;
+        if (degrees <= 60)
+            return 3.460;
+        if (degrees <= 120)
+            return 3.373;
+        return 3.291;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Random;
+
+// SaveLoad.loadSTEM, SaveLoad.loadxTuring and BinaryMachineFile.read on
+// generated machines of 10^3 to 10^5 states with two transitions each. The files are written once
+// per fork to a temporary directory, each operation loads one of them.
+public final class LoadBench {
+    private static final int[] STATES = {1000, 10000, 100000};
+
+    static void register(Bench.Suite suite) {
+        for (int n : STATES) {
+            suite.add("LoadBench.loadSTEM", "states=" + n, () -> load(stemFile(n), true));
+            suite.add("LoadBench.loadxTuring", "states=" + n, () -> load(xTuringFile(n), false));
+            suite.add("LoadBench.loadBinary", "states=" + n, () -> loadBinary(binaryFile(n)));
+        }
+    }
+
+    private static Bench.Workload loadBinary(File file) {
+        return ops -> {
+            long sum = 0;
+            for (int i = 0; i < ops; i++)
+                sum += BinaryMachineFile.read(file).getStates().size();
+            return sum;
+        };
+    }
+
+    private static Bench.Workload load(File file, boolean stem) {
+        return ops -> {
+            long sum = 0;
+            for (int i = 0; i < ops; i++) {
+                try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                    String header = br.readLine();
+                    SaveLoad loader = new SaveLoad();
+                    Machine m = stem ? loader.loadSTEM(br, header) : loader.loadxTuring(br, header);
+                    sum += m.getStates().size();
+                }
+            }
+            return sum;
+        };
+    }
+
+    // Saved the way the editor saves, through Machine.toString
+    private static File stemFile(int n) throws IOException {
+        return write("stem", machine(n).toString());
+    }
+
+    private static File binaryFile(int n) throws IOException {
+        File file = File.createTempFile("loadbench", BinaryMachineFile.EXTENSION);
+        file.deleteOnExit();
+        BinaryMachineFile.write(file, machine(n));
+        return file;
+    }
+
+    private static Machine machine(int n) {
+        Random random = new Random(42);
+        ArrayList<State> states = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            State s = new State();
+            s.setName(Integer.toString(i));
+            s.setX(100 + 150 * (i % 100));
+            s.setY(120 + 150 * (i / 100));
+            s.setAccept(i == n - 1);
+            states.add(s);
+        }
+        ArrayList<Transition> transitions = new ArrayList<>();
+        for (State s : states) {
+            for (char c : new char[]{'0', '1'}) {
+                State to = states.get(random.nextInt(n));
+                Transition t = new Transition(to, s, c, random.nextBoolean() ? '1' : '0',
+                        random.nextBoolean() ? Transition.Direction.LEFT : Transition.Direction.RIGHT);
+                s.getTransition().add(t);
+                transitions.add(t);
+            }
+        }
+        Machine m = new Machine(states, transitions, states.get(0));
+        m.getTape().initTape("0110".toCharArray());
+        return m;
+    }
+
+    // xTuringMachine numbers its states, -1 being the accept state
+    private static File xTuringFile(int n) throws IOException {
+        Random random = new Random(42);
+        StringBuilder s = new StringBuilder();
+        s.append("xTuringMachine File Format 1.0\n");
+        s.append("01 ").append(n).append('\n');
+        s.append("0 3 0;\n");
+        s.append("0110\n");
+        s.append(2 * n).append(";\n");
+        for (int i = 0; i < n; i++) {
+            for (char c : new char[]{'0', '1'}) {
+                int to = random.nextInt(n + 1) - 1;
+                s.append(i).append(' ').append(c).append(' ')
+                        .append(random.nextBoolean() ? '1' : '0').append(' ')
+                        .append(random.nextBoolean() ? 'L' : 'R').append(' ')
+                        .append(to).append(";\n");
+            }
+        }
+        return write("xtm", s.toString());
+    }
+
+    private static File write(String suffix, String contents) throws IOException {
+        File file = File.createTempFile("loadbench", "." + suffix);
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.print(contents);
+        }
+        return file;
+    }
+}
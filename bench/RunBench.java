@@ -0,0 +1,150 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+// Whole runs through Tester.runMachine at turbo speed on the usual test
+// machines. The detectLoops parameter runs each one with loop detection off
+// and on (Run Machine > Detect Loops, off by default) to show what checking
+// costs. Each operation resets the tape and runs the machine until it halts.
+public final class RunBench {
+    private static final char B = ' ';
+
+    static void register(Bench.Suite suite) {
+        for (boolean loops : new boolean[]{false, true}) {
+            String check = "detectLoops=" + loops;
+            suite.add("RunBench.increment", "bits=64," + check, () -> run(increment(), ones(64), loops));
+            suite.add("RunBench.increment", "bits=100000," + check, () -> run(increment(), ones(100000), loops));
+            suite.add("RunBench.palindrome", "length=100," + check, () -> run(palindrome(), palindrome(100), loops));
+            suite.add("RunBench.palindrome", "length=1000," + check, () -> run(palindrome(), palindrome(1000), loops));
+            suite.add("RunBench.busyBeaver", "states=3," + check, () -> run(busyBeaver3(), "", loops));
+            suite.add("RunBench.busyBeaver", "states=4," + check, () -> run(busyBeaver4(), "", loops));
+            suite.add("RunBench.busyBeaver", "states=5," + check, () -> run(busyBeaver5(), "", loops));
+        }
+    }
+
+    private static Bench.Workload run(Machine m, String input, boolean detectLoops) {
+        char[] cells = input.toCharArray();
+        m.setSpeed(Machine.TURBO);
+        Tester tester = new Tester(m);
+        tester.setDetectLoops(detectLoops);
+        return ops -> {
+            long sum = 0;
+            for (int i = 0; i < ops; i++) {
+                m.getTape().initTape(cells);
+                State end = tester.runMachine(m, m.getStartState());
+                if (!tester.didSucceed())
+                    throw new IllegalStateException("Run ended in " + end.getName() + ": " + tester.getFailReason());
+                sum += m.getTape().getSize();
+            }
+            return sum;
+        };
+    }
+
+    // Adds one to a binary number, the head starting on its first digit
+    static Machine increment() {
+        return machine("done",
+                "right 0 0 R right", "right 1 1 R right", "right _ _ L carry",
+                "carry 1 0 L carry", "carry 0 1 S done", "carry _ 1 S done");
+    }
+
+    // Accepts palindromes over a and b by matching and blanking the ends
+    static Machine palindrome() {
+        return machine("yes",
+                "start a _ R haveA", "start b _ R haveB", "start _ _ S yes",
+                "haveA a a R haveA", "haveA b b R haveA", "haveA _ _ L endA",
+                "haveB a a R haveB", "haveB b b R haveB", "haveB _ _ L endB",
+                "endA a _ L back", "endA _ _ S yes",
+                "endB b _ L back", "endB _ _ S yes",
+                "back a a L back", "back b b L back", "back _ _ R start");
+    }
+
+    // The two symbol busy beaver champions, 21, 107 and 47,176,870 steps
+    static Machine busyBeaver3() {
+        return machine("H",
+                "A _ 1 R B", "A 1 1 R H",
+                "B _ _ R C", "B 1 1 R B",
+                "C _ 1 L C", "C 1 1 L A");
+    }
+
+    static Machine busyBeaver4() {
+        return machine("H",
+                "A _ 1 R B", "A 1 1 L B",
+                "B _ 1 L A", "B 1 _ L C",
+                "C _ 1 R H", "C 1 1 L D",
+                "D _ 1 R D", "D 1 _ R A");
+    }
+
+    static Machine busyBeaver5() {
+        return machine("H",
+                "A _ 1 R B", "A 1 1 L C",
+                "B _ 1 R C", "B 1 1 R B",
+                "C _ 1 R D", "C 1 _ L E",
+                "D _ 1 L A", "D 1 1 L D",
+                "E _ 1 R H", "E 1 _ L A");
+    }
+
+    // Rules are "from read write move to", _ for a blank and S for stay.
+    // The first rule's state is the start state.
+    private static Machine machine(String accept, String... rules) {
+        HashMap<String, State> byName = new HashMap<>();
+        ArrayList<State> states = new ArrayList<>();
+        ArrayList<Transition> transitions = new ArrayList<>();
+        for (String rule : rules) {
+            String[] f = rule.split(" ");
+            State from = state(f[0], byName, states);
+            State to = state(f[4], byName, states);
+            Transition.Direction move = f[3].equals("L") ? Transition.Direction.LEFT
+                    : f[3].equals("R") ? Transition.Direction.RIGHT : Transition.Direction.STAY;
+            Transition t = new Transition(to, from, symbol(f[1]), symbol(f[2]), move);
+            from.getTransition().add(t);
+            transitions.add(t);
+        }
+        state(accept, byName, states).setAccept(true);
+        return new Machine(states, transitions, states.get(0));
+    }
+
+    private static State state(String name, HashMap<String, State> byName, ArrayList<State> states) {
+        State s = byName.get(name);
+        if (s == null) {
+            s = new State();
+            s.setName(name);
+            byName.put(name, s);
+            states.add(s);
+        }
+        return s;
+    }
+
+    private static char symbol(String s) {
+        return s.equals("_") ? B : s.charAt(0);
+    }
+
+    private static String ones(int n) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < n; i++)
+            s.append('1');
+        return s.toString();
+    }
+
+    private static String palindrome(int n) {
+        Random random = new Random(42);
+        char[] cells = new char[n];
+        for (int i = 0; i < (n + 1) / 2; i++)
+            cells[i] = cells[n - 1 - i] = random.nextBoolean() ? 'a' : 'b';
+        return new String(cells);
+    }
+}
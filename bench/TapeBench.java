@@ -0,0 +1,106 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.Random;
+
+// The tape operations every step is made of, on tapes from 10^2 to 10^7
+// cells. Moves walk the whole tape and wrap around at the end, reads and
+// writes go to random cells so bigger tapes also pay for missing the cache.
+public final class TapeBench {
+    private static final int[] SIZES = {100, 10000, 1000000, 10000000};
+    private static final int POSITIONS = 1 << 16;
+
+    static void register(Bench.Suite suite) {
+        for (int size : SIZES) {
+            String params = "size=" + size;
+            suite.add("TapeBench.right", params, () -> right(size));
+            suite.add("TapeBench.left", params, () -> left(size));
+            suite.add("TapeBench.currentTapeVal", params, () -> read(size));
+            suite.add("TapeBench.setTape", params, () -> write(size));
+        }
+    }
+
+    private static Tape tape(int size) {
+        Random random = new Random(42);
+        char[] cells = new char[size];
+        for (int i = 0; i < size; i++)
+            cells[i] = random.nextBoolean() ? '1' : '0';
+        Tape tape = new Tape();
+        tape.initTape(cells);
+        return tape;
+    }
+
+    private static int[] positions(int size) {
+        Random random = new Random(7);
+        int[] positions = new int[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++)
+            positions[i] = random.nextInt(size);
+        return positions;
+    }
+
+    private static Bench.Workload right(int size) {
+        Tape tape = tape(size);
+        return ops -> {
+            long sum = 0;
+            for (int i = 0; i < ops; i++) {
+                if (tape.getTapeHead() == size - 1)
+                    tape.setTapeHead(0);
+                else
+                    sum += tape.right();
+            }
+            return sum;
+        };
+    }
+
+    private static Bench.Workload left(int size) {
+        Tape tape = tape(size);
+        tape.setTapeHead(size - 1);
+        return ops -> {
+            long sum = 0;
+            for (int i = 0; i < ops; i++) {
+                if (tape.getTapeHead() == 0)
+                    tape.setTapeHead(size - 1);
+                else
+                    sum += tape.left();
+            }
+            return sum;
+        };
+    }
+
+    private static Bench.Workload read(int size) {
+        Tape tape = tape(size);
+        int[] positions = positions(size);
+        return ops -> {
+            long sum = 0;
+            for (int i = 0; i < ops; i++) {
+                tape.setTapeHead(positions[i & (POSITIONS - 1)]);
+                sum += tape.currentTapeVal();
+            }
+            return sum;
+        };
+    }
+
+    private static Bench.Workload write(int size) {
+        Tape tape = tape(size);
+        int[] positions = positions(size);
+        return ops -> {
+            for (int i = 0; i < ops; i++) {
+                tape.setTapeHead(positions[i & (POSITIONS - 1)]);
+                tape.setTape((i & 1) == 0 ? '1' : '0');
+            }
+            return tape.getTapeHead();
+        };
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.ArrayList;
+import java.util.Random;
+
+// Tester.nextTransition on a state with more and more transitions, through
+// the compiled table and through the scan used for states added after
+// compiling. Each operation is one lookup and one step right over a tape
+// of the characters the state reads.
+public final class TransitionBench {
+    private static final int[] TRANSITIONS = {1, 4, 16, 64};
+    private static final int TAPE = 4096;
+
+    static void register(Bench.Suite suite) {
+        for (int n : TRANSITIONS) {
+            suite.add("TransitionBench.compiled", "transitions=" + n, () -> lookups(n, true));
+            suite.add("TransitionBench.scan", "transitions=" + n, () -> lookups(n, false));
+        }
+    }
+
+    private static Bench.Workload lookups(int n, boolean compiled) {
+        State s = new State();
+        s.setName("0");
+        ArrayList<Transition> transitions = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Transition t = new Transition(s, s, (char) ('!' + i), '~', Transition.Direction.RIGHT);
+            s.getTransition().add(t);
+            transitions.add(t);
+        }
+        ArrayList<State> states = new ArrayList<>();
+        states.add(s);
+        Machine m = new Machine(states, transitions, s);
+
+        Random random = new Random(42);
+        char[] cells = new char[TAPE];
+        for (int i = 0; i < TAPE; i++)
+            cells[i] = (char) ('!' + random.nextInt(n));
+        Tape tape = m.getTape();
+        tape.initTape(cells);
+
+        Tester tester = compiled ? new Tester(m) : new Tester();
+        return ops -> {
+            long sum = 0;
+            for (int i = 0; i < ops; i++) {
+                sum += tester.nextTransition(s, tape).getReadChar();
+                if (tape.getTapeHead() == TAPE - 1)
+                    tape.setTapeHead(0);
+                else
+                    tape.right();
+            }
+            return sum;
+        };
+    }
+}
@@ -43,12 +43,18 @@ import javafx.stage.Modality;
 import javafx.stage.Popup;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.concurrent.CountDownLatch;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 class Editor {
 	private Stage window;
@@ -57,6 +63,8 @@ class Editor {
 	private Pane editorSpace;
 	private ToggleGroup toggleGroup;
 	private Machine currentMachine;
+	// What the transitions of currentMachine are drawn on
+	private ArrayList<Path> paths = new ArrayList<>();
 	private EventHandler<MouseEvent> currentHandler;
 	private ArrayList<Integer> deletedValues = new ArrayList<>();
 	private State transitionFromState;
@@ -66,7 +74,19 @@ class Editor {
 	private Polygon startTriangle;
 	private ContextMenu contextMenu = initContextMenu();
 	private String machineFile;
+	// Edits since the machine was last saved, once it has a file
+	private MachineJournal journal;
 	private BorderPane tapeArea;
+	private TapeView tapeView;
+	private RunBudget runBudget = new RunBudget();
+	private Breakpoints breakpoints = new Breakpoints();
+
+	// Count transitions during runs and tint the machine by them afterwards
+	private boolean showHeatmap;
+	// Stop runs that repeat a configuration, at the cost of checking every step
+	private boolean detectLoops;
+	// Which tape of a k-tape machine the tape area shows and Edit Tape edits
+	private int shownTape;
 	//private Integer tapeDisplayOffset;
 
 	void setCircleRadius(int size){
@@ -97,7 +117,7 @@ class Editor {
 
 	// Call when exiting the Editor
 	private boolean deleteEditor(Stage window, Scene prev, Machine m){
-		System.out.println("If you see this you should be saving your machine");
+		Trace.debug("If you see this you should be saving your machine");
 		if(machineFile.compareTo(currentMachine.toString()) != 0){
 			ButtonType yes = new ButtonType("Yes", ButtonBar.ButtonData.YES);
 			ButtonType no = new ButtonType("No", ButtonBar.ButtonData.NO);
@@ -112,7 +132,9 @@ class Editor {
 			Optional<ButtonType> buttonData = saveAlert.showAndWait();
 
 			if(buttonData.isPresent() && buttonData.get().getButtonData() == ButtonBar.ButtonData.YES){
-				saveMachine(window, currentMachine);
+				// A save that failed or was cancelled keeps the editor open, journal and all
+				if(!saveMachine(window, currentMachine))
+					return false;
 			}
 			else if(buttonData.isPresent() && buttonData.get().getButtonData() == ButtonBar.ButtonData.CANCEL_CLOSE) {
 				return false;
@@ -123,6 +145,12 @@ class Editor {
 
 		window.setOnCloseRequest(null);
 
+		// Saved or dropped, either way there is nothing left to recover
+		if(journal != null) {
+			journal.discard();
+			journal = null;
+		}
+
 		window.setScene(prev);
 
 		deletedValues.clear();
@@ -137,7 +165,11 @@ class Editor {
 		bar = null;
 		editorSpace = null;
 
+		tapeView.detach();
+		tapeView = null;
+
 		currentMachine = null;
+		paths = new ArrayList<>();
 		if(currentHandler != null) {
 			window.removeEventHandler(MouseEvent.MOUSE_CLICKED, currentHandler);
 		}
@@ -185,17 +217,18 @@ class Editor {
 		//tapeArea.setPrefHeight(headDisplay.getHeight() + tapeDisplay.getHeight());
 
 		shiftLeft.setOnMouseClicked((button) -> {
-			currentMachine.getTape().decrementDisplayOffset();
-			currentMachine.getTape().refreshTapeDisplay();
+			tapeView.decrementDisplayOffset();
+			tapeView.refreshTapeDisplay();
 		});
 
 		shiftRight.setOnMouseClicked((button) -> {
-			currentMachine.getTape().incrementDisplayOffset();
-			currentMachine.getTape().refreshTapeDisplay();
+			tapeView.incrementDisplayOffset();
+			tapeView.refreshTapeDisplay();
 		});
 
-		currentMachine.getTape().setDisplay(tapeDisplay, headDisplay, tapeArea);
-		System.out.println("I'm in here!");
+		tapeView = new TapeView(currentMachine.getTape(shownTape), tapeDisplay, headDisplay, tapeArea);
+		tapeView.attach();
+		Trace.debug("I'm in here!");
 		return tapeArea;
 	}
 
@@ -232,10 +265,29 @@ class Editor {
 
 		// Begin NON-Toggle buttons
 		
-		Button tapeButton = new Button("Edit Tape");
+		MenuItem tapeFile = new MenuItem("Load Tape File...");
+		tapeFile.setOnAction(e->loadTapeFile(window, currentMachine));
+		MenuItem tapeCount = new MenuItem("Set Tape Count...");
+		tapeCount.setOnAction(e->editTapeCount(window, currentMachine));
+		Menu showTape = new Menu("Show Tape");
+		SplitMenuButton tapeButton = new SplitMenuButton(tapeFile, tapeCount, showTape);
+		tapeButton.setText("Edit Tape");
 		tapeButton.fontProperty().bind(barTextTrack);
 		tapeButton.prefWidthProperty().bind(bar.widthProperty().divide(7));
 		tapeButton.setOnAction(e->editTape(window, currentMachine));
+		// One entry per tape, the machine's tape count can change
+		tapeButton.setOnShowing(e -> {
+			ToggleGroup tapes = new ToggleGroup();
+			showTape.getItems().clear();
+			for (int i = 0; i < currentMachine.getTapeCount(); i++) {
+				int tape = i;
+				RadioMenuItem item = new RadioMenuItem("Tape " + (i + 1));
+				item.setToggleGroup(tapes);
+				item.setSelected(i == shownTape);
+				item.setOnAction(e1 -> showTape(tape));
+				showTape.getItems().add(item);
+			}
+		});
 
 		//New Reset Button
 		Button resetButton = new Button("Reset Tape");
@@ -245,7 +297,7 @@ class Editor {
 
 		// Run Machine with options for speed
 		MenuItem manualControl = new MenuItem("Manual");
-		manualControl.setOnAction(e -> currentMachine.setSpeed(-1));
+		manualControl.setOnAction(e -> currentMachine.setSpeed(Machine.MANUAL));
 		MenuItem slow = new MenuItem("Slow");
 		slow.setOnAction(e -> currentMachine.setSpeed(500));
 		MenuItem normal = new MenuItem("Normal");
@@ -254,8 +306,22 @@ class Editor {
 		fast.setOnAction(e -> currentMachine.setSpeed(75));
 		MenuItem noDelay = new MenuItem("No Delay");
 		noDelay.setOnAction(e -> currentMachine.setSpeed(0));
-
-		SplitMenuButton runMachine = new SplitMenuButton(manualControl, slow, normal, fast, noDelay);
+		MenuItem turbo = new MenuItem("Turbo");
+		turbo.setOnAction(e -> currentMachine.setSpeed(Machine.TURBO));
+		MenuItem explore = new MenuItem("Explore All Branches");
+		explore.setOnAction(e -> currentMachine.setSpeed(Machine.EXPLORE));
+		MenuItem limits = new MenuItem("Set Limits...");
+		limits.setOnAction(e -> editLimits(window));
+		MenuItem breaks = new MenuItem("Breakpoints...");
+		breaks.setOnAction(e -> editBreakpoints(window));
+		CheckMenuItem heat = new CheckMenuItem("Show Heatmap");
+		heat.setSelected(showHeatmap);
+		heat.setOnAction(e -> showHeatmap = heat.isSelected());
+		CheckMenuItem loops = new CheckMenuItem("Detect Loops");
+		loops.setSelected(detectLoops);
+		loops.setOnAction(e -> detectLoops = loops.isSelected());
+
+		SplitMenuButton runMachine = new SplitMenuButton(manualControl, slow, normal, fast, noDelay, turbo, explore, limits, breaks, heat, loops);
 		runMachine.setText("Run Machine");
 		runMachine.fontProperty().bind(barTextTrack);
 		runMachine.prefWidthProperty().bind(bar.widthProperty().divide(5));
@@ -299,9 +365,9 @@ class Editor {
 			startTriangle.getPoints().clear();
 
 			startTriangle.getPoints().addAll(
-					s.getCircle().getCenterX()-circleRadius - 1, s.getCircle().getCenterY(),
-					s.getCircle().getCenterX()-2*circleRadius, s.getCircle().getCenterY()-circleRadius,
-					s.getCircle().getCenterX()-2*circleRadius, s.getCircle().getCenterY()+circleRadius
+					StateView.of(s).getCircle().getCenterX()-circleRadius - 1, StateView.of(s).getCircle().getCenterY(),
+					StateView.of(s).getCircle().getCenterX()-2*circleRadius, StateView.of(s).getCircle().getCenterY()-circleRadius,
+					StateView.of(s).getCircle().getCenterX()-2*circleRadius, StateView.of(s).getCircle().getCenterY()+circleRadius
 			);
 
 			startTriangle.setFill(null);
@@ -309,35 +375,39 @@ class Editor {
 
 			editorSpace.getChildren().addAll(startTriangle);
 			currentMachine.setStartState(s);
-			System.out.printf("State %s is now start\n", currentMachine.getStartState().getName());
+			if(journal != null)
+				journal.setStart(s);
+			Trace.debug("State %s is now start", currentMachine.getStartState().getName());
 		});
 
 		MenuItem toggleAccept = new MenuItem("Toggle Accept");
 		toggleAccept.setOnAction(event -> {
 			State s = (State) contextMenu.getOwnerNode().getUserData();
 
-			if(s.getAcceptCircle() == null){
+			if(StateView.of(s).getAcceptCircle() == null){
 				s.setAccept(true);
 
-				Circle c = new Circle(s.getCircle().getCenterX(), s.getCircle().getCenterY()
+				Circle c = new Circle(StateView.of(s).getCircle().getCenterX(), StateView.of(s).getCircle().getCenterY()
 						, circleRadius * 1.25, null);
 				c.setStrokeWidth(2);
 				c.setStroke(Color.BLACK);
 
-				s.setAcceptCircle(c);
+				StateView.of(s).setAcceptCircle(c);
 				editorSpace.getChildren().add(c);
 				c.toBack();
 
-				System.out.printf("State %s is accept = %s\n", s.getName(), s.isAccept());
+				Trace.debug("State %s is accept = %s", s.getName(), s.isAccept());
 			}
 			else {
 				s.setAccept(false);
 
-				editorSpace.getChildren().remove(s.getAcceptCircle());
+				editorSpace.getChildren().remove(StateView.of(s).getAcceptCircle());
 
-				s.setAcceptCircle(null);
-				System.out.printf("State %s is accept = %s\n", s.getName(), s.isAccept());
+				StateView.of(s).setAcceptCircle(null);
+				Trace.debug("State %s is accept = %s", s.getName(), s.isAccept());
 			}
+			if(journal != null)
+				journal.setAccept(s);
 		});
 
 		MenuItem moveState = new MenuItem("Move State");
@@ -350,7 +420,7 @@ class Editor {
 			tl.addAll(s.getTransition());
 			for(Transition t : currentMachine.getTransitions()){
 				if(t.getToState() == s && t.getToState() != t.getFromState()){
-					System.out.printf("Adding Transiton %s -> %s, %c ; %c ; %c\n", t.getFromState().getName(), t.getToState().getName(),
+					Trace.debug("Adding Transiton %s -> %s, %c ; %c ; %c", t.getFromState().getName(), t.getToState().getName(),
 							t.getReadChar(), t.getWriteChar(), t.getMoveDirection().toString().charAt(0));
 					tl.add(t);
 				}
@@ -410,6 +480,8 @@ class Editor {
 						if (n instanceof ToggleButton || n instanceof Button || n instanceof SplitMenuButton)
 							n.setDisable(false);
 					}
+					if(journal != null && (s.getX() != initialX || s.getY() != initialY))
+						journal.moveState(s);
 					editorSpace.removeEventHandler(MouseEvent.MOUSE_CLICKED, this);
 				}
 			};
@@ -439,8 +511,10 @@ class Editor {
 			);
 			Optional<Color> newcolor = pickerWindow.showAndWait();
 			if(newcolor.isPresent()){
-				s.setColor(newcolor.get());
-				s.getCircle().setFill(newcolor.get());
+				StateView.of(s).setColor(newcolor.get());
+				StateView.of(s).getCircle().setFill(newcolor.get());
+				if(journal != null)
+					journal.setColor(s);
 			}
 		});
 
@@ -449,13 +523,13 @@ class Editor {
 			State s = (State) contextMenu.getOwnerNode().getUserData();
 			if(!s.isDebug()){
 				s.setDebug(true);
-				s.getCircle().setStroke(Color.RED);
-				System.out.printf("State %s is breakpoint = %s\n", s.getName(), s.isDebug());
+				StateView.of(s).getCircle().setStroke(Color.RED);
+				Trace.debug("State %s is breakpoint = %s", s.getName(), s.isDebug());
 			}
 			else {
 				s.setDebug(false);
-				s.getCircle().setStroke(Color.BLACK);
-				System.out.printf("State %s is breakpoint = %s\n", s.getName(), s.isDebug());
+				StateView.of(s).getCircle().setStroke(Color.BLACK);
+				Trace.debug("State %s is breakpoint = %s", s.getName(), s.isDebug());
 			}
 
 
@@ -474,38 +548,64 @@ class Editor {
 	//
 	public void newMachine(Stage window, Scene prev){
 		currentMachine = new Machine();
+		// Journaled from when it is first saved
+		journal = null;
+		paths = new ArrayList<>();
+		originalTapes.clear();
 		startMachine(window, prev);
 	}
 
 	public boolean saveMachine(Stage window, Machine m) {
-	    SaveLoad saveLoad = new SaveLoad();
-
-		machineFile = m.toString();
-	    return saveLoad.saveMachine(window, m);
+		String saved = m.toString();
+		File file = MachineFileChooser.saveMachine(window, m);
+		if(file == null)
+			return false;
+		// Only now, so closing after a failed save still asks
+		machineFile = saved;
+		if(journal == null)
+			journal = MachineJournal.start(file, false);
+		else
+			journal.saved(file);
+		return true;
 	}
 
-	//Where I store global tape given to us from the SaveLoad class's current tape
-    ArrayList<Character> originalTape = new ArrayList<>();
+	// Snapshots of every tape as loaded or as last edited, so Reset puts
+	// them back without copying any cells
+	private ArrayList<Tape.Snapshot> originalTapes = new ArrayList<>();
 
     public void loadMachine(Stage window, Scene prev){
-	    SaveLoad saveLoad = new SaveLoad();
-
-	    currentMachine = saveLoad.loadMachine(window);
-	    stateNextVal = saveLoad.getStateNextVal();
+		File file = MachineFileChooser.chooseMachineFile(window);
+		Machine recovered = (file == null) ? null : MachineFileChooser.recoverMachine(window, file);
+		if(recovered != null) {
+			currentMachine = recovered;
+			journal = MachineJournal.start(file, true);
+		} else {
+			Machine read = MachineFileChooser.loadMachine(window, file);
+			currentMachine = (read == null) ? new Machine() : read;
+			journal = (read == null) ? null : MachineJournal.start(file, false);
+		}
+	    stateNextVal = currentMachine.getNextStateId();
 
-	    //When the machine is loaded, we set originalTape
-        originalTape = saveLoad.globalTape;
+	    //When the machine is loaded, we remember its tapes for Reset
+		originalTapes.clear();
+		for (int i = 0; i < currentMachine.getTapeCount(); i++)
+			originalTapes.add(currentMachine.getTape(i).snapshot());
 
 		//currentMachine = currentMachine;
 		redrawAllStates();
 		redrawAllPaths();
 
-		//currentMachine.getTape().refreshTapeDisplay();
+		//tapeView.refreshTapeDisplay();
 		startMachine(window, prev);
+
+		// Recovered edits are still unsaved
+		if(recovered != null)
+			machineFile = "";
 	}
 	
 	/* Called whenever a new machine is setup */
 	private void startMachine(Stage window, Scene prev){
+		shownTape = 0;
 		initTapeDisplay(tapeArea);
 		machineFile = currentMachine.toString();
 
@@ -542,10 +642,11 @@ class Editor {
 			if(currentHandler != null)
 				editorSpace.removeEventHandler(MouseEvent.MOUSE_CLICKED, currentHandler);
 			if(transitionFromState != null){
-				transitionFromState.getCircle().setFill(transitionFromState.getBaseColor());
+				StateView.of(transitionFromState).resetFill();
 				transitionFromState = null;
 			}
-			for (Path p : currentMachine.getPaths())
+			clearHeatmap();
+			for (Path p : paths)
 				p.setTextFillColor(Color.BLACK);
 
 			//   _   _
@@ -555,7 +656,7 @@ class Editor {
 			//  |_| \_|\___/|_| |_|\___|
 			//
 			if(new_toggle == null){
-				System.out.println("No toggle selected");
+				Trace.debug("No toggle selected");
 			}
 
 
@@ -566,7 +667,7 @@ class Editor {
 			//  /_/   \_\__,_|\__,_| |____/ \__\__,_|\__\___|
 			//
 			else if (new_toggle.getUserData() == "Add State"){
-				System.out.println(new_toggle.getUserData());
+				Trace.debug("%s", new_toggle.getUserData());
 
 				editorSpace.addEventFilter(MouseEvent.MOUSE_MOVED, MoveEvent);
 
@@ -585,13 +686,13 @@ class Editor {
 						String name;
 						if (deletedValues.isEmpty()) {
 							name = Integer.toString(stateNextVal);
-							System.out.println(stateNextVal);
+							Trace.debug("%s", stateNextVal);
 							stateNextVal++;
 						} else {
 							int minIndex = deletedValues.indexOf(Collections.min(deletedValues));
 							int savedVal = deletedValues.get(minIndex);
 							deletedValues.remove(minIndex);
-							System.out.println(savedVal);
+							Trace.debug("%s", savedVal);
 							name = Integer.toString(savedVal);
 						}
 
@@ -608,7 +709,9 @@ class Editor {
 
 						// Set Create State and add it to the Node's user data
 						// so it is easy to find if clicked on
-						State s = new State(name, event.getX(), event.getY(), t, c);
+						State s = new State(name, event.getX(), event.getY());
+						StateView.of(s).setCircle(c);
+						StateView.of(s).setLabel(t);
 						c.setUserData(s);
 						t.setUserData(s);
 
@@ -620,7 +723,9 @@ class Editor {
 						});
 
 						currentMachine.addState(s);
-						editorSpace.getChildren().addAll(s.getCircle(), s.getLabel());
+						if(journal != null)
+							journal.addState(s);
+						editorSpace.getChildren().addAll(StateView.of(s).getCircle(), StateView.of(s).getLabel());
 					}
 				};
 
@@ -636,9 +741,9 @@ class Editor {
 			//  |____/ \___|_|\___|\__\___|    \_/ \__,_|_|\__,_|\___|
 			//
 			else if (new_toggle.getUserData() == "Delete Value"){
-				System.out.println(new_toggle.getUserData());
+				Trace.debug("%s", new_toggle.getUserData());
 
-				for (Path p : currentMachine.getPaths())
+				for (Path p : paths)
 					p.setTextFillColor(Color.DARKRED);
 
 				currentHandler = event -> {
@@ -654,20 +759,22 @@ class Editor {
 							ArrayList<Path> deletePaths = new ArrayList<>();
 
 							targetState = (State) Target;
+							if(journal != null)
+								journal.deleteState(targetState);
 
 							for (Transition t : currentMachine.getTransitions()) {
 								if (t.getToState() == targetState) {
 
-									ArrayList<Node> nodes = t.getPath().getAllNodes();
+									ArrayList<Node> nodes = Path.of(t).getAllNodes();
 									if (!nodes.isEmpty())
-										editorSpace.getChildren().removeAll(t.getPath().getAllNodes());
+										editorSpace.getChildren().removeAll(Path.of(t).getAllNodes());
 									t.getFromState().getTransition().remove(t);
 
-									deletePaths.add(t.getPath());
+									deletePaths.add(Path.of(t));
 									deleteTransitions.add(t);
 								}
 							}
-							currentMachine.getPaths().removeAll(deletePaths);
+							paths.removeAll(deletePaths);
 							currentMachine.getTransitions().removeAll(deleteTransitions);
 							deleteTransitions.clear();
 							deletePaths.clear();
@@ -675,28 +782,30 @@ class Editor {
 							deleteState(targetState);
 						}
 						else if(Target instanceof Transition){
-						    System.out.println("Test");
+						    Trace.debug("Test");
 							ArrayList<Node> nodes;
 							Transition targetTransition;
 
 							targetTransition = (Transition) Target;
-							nodes = targetTransition.getPath().removeTransition(targetTransition);
+							nodes = Path.of(targetTransition).removeTransition(targetTransition);
 
 							if(!nodes.isEmpty())
 								editorSpace.getChildren().removeAll(nodes);
 
-							if(targetTransition.getPath().getAllNodes().isEmpty())
-								currentMachine.getPaths().remove(targetTransition.getPath());
+							if(Path.of(targetTransition).getAllNodes().isEmpty())
+								paths.remove(Path.of(targetTransition));
 
+							if(journal != null)
+								journal.deleteTransition(currentMachine.getTransitions().indexOf(targetTransition));
 							targetTransition.getFromState().getTransition().remove(targetTransition);
 							currentMachine.getTransitions().remove(targetTransition);
 						}
 
 						for(Transition t : currentMachine.getTransitions())
-							System.out.printf("%c ; %c ; %c\n", t.getReadChar(), t.getWriteChar(), t.getMoveDirection().toString().charAt(0));
+							Trace.debug("%c ; %c ; %c", t.getReadChar(), t.getWriteChar(), t.getMoveDirection().toString().charAt(0));
 
-						for(Path p : currentMachine.getPaths())
-							System.out.println(p.toString());
+						for(Path p : paths)
+							Trace.debug("%s", p.toString());
 					}
 				};
 				editorSpace.addEventHandler(MouseEvent.MOUSE_CLICKED, currentHandler);
@@ -709,7 +818,7 @@ class Editor {
 			//  /_/   \_\__,_|\__,_|   |_||_|  \__,_|_| |_|___/_|\__|_|\___/|_| |_|
 			//
 			else if (new_toggle.getUserData() == "Add Transition"){
-				System.out.println(new_toggle.getUserData());
+				Trace.debug("%s", new_toggle.getUserData());
 
 				currentHandler = event -> {
 					if(event.getButton() == MouseButton.PRIMARY){
@@ -718,21 +827,21 @@ class Editor {
 
 							if(Target.getUserData() instanceof State){
 								State s = (State) Target.getUserData();
-								System.out.printf("State: %s\n", s.getName());
+								Trace.debug("State: %s", s.getName());
 
 								if(transitionFromState == null){
 									transitionFromState = s;
-									transitionFromState.getCircle().setFill(Color.AQUA);
+									StateView.of(transitionFromState).getCircle().setFill(Color.AQUA);
 								}
 								else{
-									System.out.printf("Create Transition from %s to %s\n", transitionFromState.getName(), s.getName());
+									Trace.debug("Create Transition from %s to %s", transitionFromState.getName(), s.getName());
 
-									s.getCircle().setFill(Color.AQUA);
+									StateView.of(s).getCircle().setFill(Color.AQUA);
 									Transition t = addTransition(transitionFromState, s);
 
 									if(t == null){
-										transitionFromState.getCircle().setFill(transitionFromState.getBaseColor());
-										s.getCircle().setFill(s.getBaseColor());
+										StateView.of(transitionFromState).resetFill();
+										StateView.of(s).resetFill();
 										transitionFromState = null;
 
 										return;
@@ -745,23 +854,25 @@ class Editor {
 
 									currentMachine.getTransitions().add(t);
 									transitionFromState.getTransition().add(t);
+									if(journal != null)
+										journal.addTransition(t);
 
 									Path path = null;
-									for(Path p : currentMachine.getPaths()){
+									for(Path p : paths){
 										if(p.compareTo(transitionFromState, s)) {
 										    path = p;
-										    System.out.println("Found Path");
+										    Trace.debug("Found Path");
 										    break;
 										}
 									}
 
 									if (path == null){
 										path = new Path(transitionFromState, s);
-										System.out.println("New Path");
-										currentMachine.getPaths().add(path);
+										Trace.debug("New Path");
+										paths.add(path);
 									}
 
-									t.setPath(path);
+									t.setView(path);
 									ArrayList<Node> nodes = path.addTransition(t);
 									editorSpace.getChildren().addAll(nodes);
 
@@ -769,15 +880,15 @@ class Editor {
 										if(n instanceof Line || n instanceof CubicCurve)
 											n.toBack();
 
-									s.getCircle().setFill(s.getBaseColor());
-									transitionFromState.getCircle().setFill(transitionFromState.getBaseColor());
+									StateView.of(s).resetFill();
+									StateView.of(transitionFromState).resetFill();
 									transitionFromState = null;
 								}
 							}
 						}
 						else{
 							if(transitionFromState != null)
-								transitionFromState.getCircle().setFill(transitionFromState.getBaseColor());
+								StateView.of(transitionFromState).resetFill();
 							transitionFromState = null;
 						}
 
@@ -802,48 +913,109 @@ class Editor {
 
 	private Transition addTransition(State from, State to) {
 		// This window suspends until Transition editor is done.
-		TransitionEditor t = new TransitionEditor(window ,from, to);
+		TransitionEditor t = new TransitionEditor(window ,from, to, currentMachine.getTapeCount());
 
 		// Check if transition is valid is done.
 		if(t.createdTransition == null)
-			System.out.println("null");
+			Trace.debug("null");
 		else
-			System.out.printf("Transition: %s -> %s %c %c %s\n", t.createdTransition.getFromState().getName(), t.createdTransition.getToState().getName(),
+			Trace.debug("Transition: %s -> %s %c %c %s", t.createdTransition.getFromState().getName(), t.createdTransition.getToState().getName(),
 					t.createdTransition.getReadChar(), t.createdTransition.getWriteChar(), t.createdTransition.getMoveDirection().toString());
 
 		return t.createdTransition;
 	}
 
-	//Need to store the editedTape's value in case they change it
-	//using the editTape function
-	public ArrayList<Character> editedTape = new ArrayList<>();
-
 	//Current code for resetting the tape
 	private void resetTape(Machine currentMachine) {
+		tapeView.resetDisplayOffset();
 
+		//Tapes that were never loaded or edited go back to blank
+		for (int i = 0; i < currentMachine.getTapeCount(); i++) {
+			if (i < originalTapes.size())
+				currentMachine.getTape(i).restore(originalTapes.get(i));
+			else
+				currentMachine.getTape(i).initTape(new char[0]);
+		}
+		journalTapes();
+	}
 
-		//If the tape was preloaded in, we want to reset tape to that value
-		//until they use the edit tape button to actually change the tape
-		if (editedTape.isEmpty()) {
+	// Runs and Reset change the tapes without any edit, so the journal is
+	// given them afterwards and edits after them apply to the same cells.
+	// Snapshots are O(1), the journal works out what changed in the background.
+	private void journalTapes() {
+		if(journal == null)
+			return;
+		for (int i = 0; i < currentMachine.getTapeCount(); i++)
+			journal.setTape(i, currentMachine.getTape(i).snapshot());
+	}
 
-			currentMachine.getTape().initTape(originalTape);
-			currentMachine.getTape().refreshTapeDisplay();
-		}
+	// Show tape i of the machine in the tape area
+	private void showTape(int i) {
+		shownTape = i;
+		tapeView.detach();
+		initTapeDisplay(tapeArea);
+		tapeView.refreshTapeDisplay();
+	}
 
-		//If they use the edit tape button, we simply put the
-		//original tape onto the display
-		else {
+	// Reset goes back to tape i as it is now
+	private void rememberTape(int i) {
+		while (originalTapes.size() <= i)
+			originalTapes.add(new Tape().snapshot());
+		originalTapes.set(i, currentMachine.getTape(i).snapshot());
+	}
 
-            currentMachine.getTape().initTape(editedTape);
-            currentMachine.getTape().refreshTapeDisplay();
+	private void editTapeCount(Stage window, Machine currentMachine) {
+		TextInputDialog countEdit = new TextInputDialog(Integer.toString(currentMachine.getTapeCount()));
+		countEdit.setTitle("Set Tape Count");
+		countEdit.setHeaderText("Tapes added are blank, and tapes dropped from the end lose their cells.\n" +
+				"Transitions say nothing about tapes added until they are edited.");
+		countEdit.setContentText("Number of tapes (1-16):");
+		countEdit.initOwner(window);
+		countEdit.initModality(Modality.APPLICATION_MODAL);
+
+		Optional<String> result = countEdit.showAndWait();
+		if (!result.isPresent())
+			return;
+		int k;
+		try {
+			k = Integer.parseInt(result.get().trim());
+		} catch (NumberFormatException e) {
+			k = 0;
+		}
+		if (k < 1 || k > 16) {
+			Alert alert = new Alert(Alert.AlertType.WARNING);
+			alert.setTitle("Invalid tape count");
+			alert.setContentText("A machine has between 1 and 16 tapes.");
+			alert.initOwner(window);
+			alert.initModality(Modality.APPLICATION_MODAL);
+			alert.showAndWait();
+			editTapeCount(window, currentMachine);
+			return;
 		}
 
+		currentMachine.setTapeCount(k);
+		if(journal != null)
+			journal.setTapeCount(k);
+		// Labels show every tape a transition has
+		redrawAllPaths();
+		while (originalTapes.size() > k)
+			originalTapes.remove(originalTapes.size() - 1);
+		if (shownTape >= k)
+			showTape(0);
 	}
 
 	private void editTape(Stage window, Machine currentMachine) {
-		TextInputDialog tapeEdit = new TextInputDialog( currentMachine.getTape().toString());
+		int shown = shownTape;
+		Tape tape = currentMachine.getTape(shown);
+		// A tape longer than the screen is edited a screenful at a time,
+		// so the dialog never holds the whole tape
+		int start = tapeView.getDisplayOffset();
+		int count = tapeView.getVisibleCells();
+		boolean whole = tape.getSize() <= count;
+		TextInputDialog tapeEdit = new TextInputDialog(whole ? tape.toString() : new String(tape.window(start, count)));
 		tapeEdit.setTitle("Edit Tape");
-		tapeEdit.setHeaderText("Valid characters are Ascii values 32-125\nThis includes all alpha-numeric values.");
+		tapeEdit.setHeaderText("Valid characters are Ascii values 32-125\nThis includes all alpha-numeric values." +
+				(whole ? "" : String.format("\nEditing cells %d to %d of %d, the ones on screen.", start, start + count - 1, tape.getSize())));
 
 		tapeEdit.setContentText("Enter a string for the tape (spaces for blank):");
 		tapeEdit.initOwner(window);
@@ -851,12 +1023,8 @@ class Editor {
 
 		Optional<String> result = tapeEdit.showAndWait();
 		result.ifPresent(tapeString -> {
-			ArrayList<Character> characters = new ArrayList<>();
-			for(Character c: tapeString.toCharArray()) {
-				if (c >= 32 && c < 126) {
-					characters.add(c);
-				}
-				else {
+			for(char c: tapeString.toCharArray()) {
+				if (c < 32 || c >= 126) {
 					Alert alert = new Alert(Alert.AlertType.WARNING);
 					alert.setTitle("Invalid character(s)");
 					alert.setContentText("You input invalid character(s) in your tape.");
@@ -868,39 +1036,234 @@ class Editor {
 				}
 			}
 
-			//Need to store this character string for my
-			//Reset tape function
-			editedTape = characters;
-			currentMachine.getTape().initTape(characters);
-			currentMachine.getTape().refreshTapeDisplay();
+			if (whole) {
+				tapeView.resetDisplayOffset();
+				tape.initTape(tapeString.toCharArray());
+				if(journal != null)
+					journal.setTape(shown, tape.snapshot());
+			} else {
+				// Cells taken out of the window become blanks
+				char[] cells = Arrays.copyOf(tapeString.toCharArray(), Math.max(count, tapeString.length()));
+				Arrays.fill(cells, tapeString.length(), cells.length, ' ');
+				if(journal != null)
+					journal.setCells(shown, start, cells);
+				tapeView.setDisplayOffset(start + tape.setCells(start, cells));
+				tapeView.refreshTapeDisplay();
+			}
 
+			//Reset goes back to the edited tape from now on
+			rememberTape(shown);
 		});
 	}
 
+	// Start the shown tape with the cells of a tape file, which the tape is
+	// saved back to with the machine from then on
+	private void loadTapeFile(Stage window, Machine currentMachine) {
+		int shown = shownTape;
+		File file = MachineFileChooser.chooseTapeFile(window);
+		if (file == null)
+			return;
+		try {
+			TapeFile.load(file, currentMachine.getTape(shown));
+		} catch (IOException e) {
+			Alert fileError = new Alert(Alert.AlertType.ERROR);
+			fileError.setTitle("File Error");
+			fileError.setHeaderText("Ran into a problem loading that tape file!");
+			fileError.setContentText(e.getMessage());
+			fileError.initOwner(window);
+			fileError.initModality(Modality.APPLICATION_MODAL);
+			fileError.showAndWait();
+			return;
+		}
+		currentMachine.setTapeFile(shown, file.getAbsolutePath());
+		if(journal != null)
+			journal.setTapeFile(shown, file.getAbsolutePath());
+		tapeView.resetDisplayOffset();
+		tapeView.refreshTapeDisplay();
+
+		rememberTape(shown);
+	}
+
+	// Lets the user cap steps, run time and tape length for runs of this machine.
+	// Blank fields mean no limit.
+	private void editLimits(Stage window) {
+		Dialog<RunBudget> limitsWindow = new Dialog<>();
+		limitsWindow.setTitle("Run Limits");
+		limitsWindow.setHeaderText("Stop the machine when it goes over any of these.\nLeave a field blank for no limit.");
+		limitsWindow.initOwner(window);
+		limitsWindow.initModality(Modality.APPLICATION_MODAL);
+		limitsWindow.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+		TextField steps = new TextField(limitText(runBudget.getMaxSteps()));
+		TextField millis = new TextField(limitText(runBudget.getMaxMillis()));
+		TextField tapeLength = new TextField(limitText(runBudget.getMaxTapeLength()));
+		TextField frontier = new TextField(limitText(runBudget.getMaxFrontier()));
+		TextField memory = new TextField(limitText(runBudget.getMaxMemory() == RunBudget.UNLIMITED
+				? RunBudget.UNLIMITED : runBudget.getMaxMemory() >> 20));
+
+		GridPane grid = new GridPane();
+		grid.setHgap(10);
+		grid.setVgap(10);
+		grid.add(new Label("Max steps"), 0, 0);
+		grid.add(steps, 1, 0);
+		grid.add(new Label("Max time (ms)"), 0, 1);
+		grid.add(millis, 1, 1);
+		grid.add(new Label("Max tape length"), 0, 2);
+		grid.add(tapeLength, 1, 2);
+		grid.add(new Label("Max branches per step (explore)"), 0, 3);
+		grid.add(frontier, 1, 3);
+		grid.add(new Label("Max memory in MB (explore)"), 0, 4);
+		grid.add(memory, 1, 4);
+		limitsWindow.getDialogPane().setContent(grid);
+
+		limitsWindow.setResultConverter(dialogButton -> {
+			if(dialogButton == ButtonType.OK){
+				try {
+					RunBudget budget = new RunBudget(parseLimit(steps.getText()), parseLimit(millis.getText()),
+							parseLimit(tapeLength.getText()));
+					budget.setMaxFrontier(parseLimit(frontier.getText()));
+					long megabytes = parseLimit(memory.getText());
+					budget.setMaxMemory(megabytes >= RunBudget.UNLIMITED >> 20 ? RunBudget.UNLIMITED : megabytes << 20);
+					return budget;
+				} catch (NumberFormatException e) {
+					Alert alert = new Alert(Alert.AlertType.WARNING);
+					alert.setTitle("Invalid limit");
+					alert.setContentText("Limits must be positive whole numbers.");
+					alert.initOwner(window);
+					alert.initModality(Modality.APPLICATION_MODAL);
+					alert.showAndWait();
+				}
+			}
+			return null;
+		});
+
+		Optional<RunBudget> result = limitsWindow.showAndWait();
+		result.ifPresent(budget -> runBudget = budget);
+	}
+
+	// Lets the user pause runs on transitions, symbols, tape cells or a step
+	// count as well as on states. Turbo runs go at full speed up to them.
+	private void editBreakpoints(Stage window) {
+		Dialog<ButtonType> breakWindow = new Dialog<>();
+		breakWindow.setTitle("Breakpoints");
+		breakWindow.setHeaderText("Pause the machine after a step that matches any of these.\n" +
+				"States are set from their right click menu.");
+		breakWindow.initOwner(window);
+		breakWindow.initModality(Modality.APPLICATION_MODAL);
+		breakWindow.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+		ListView<Transition> transitions = new ListView<>();
+		transitions.getItems().addAll(currentMachine.getTransitions());
+		transitions.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+		transitions.setPrefHeight(150);
+		transitions.setCellFactory(list -> new ListCell<Transition>() {
+			@Override
+			protected void updateItem(Transition t, boolean empty) {
+				super.updateItem(t, empty);
+				setText(empty || t == null ? null : String.format("%s -> %s  %c ; %c ; %c",
+						t.getFromState().getName(), t.getToState().getName(), t.getReadChar(),
+						t.getWriteChar(), t.getMoveDirection().toString().charAt(0)));
+			}
+		});
+		for (Transition t : breakpoints.getTransitions())
+			transitions.getSelectionModel().select(t);
+
+		TextField read = new TextField(symbolText(breakpoints.getRead()));
+		TextField written = new TextField(symbolText(breakpoints.getWritten()));
+		StringBuilder cellText = new StringBuilder();
+		for (int cell : breakpoints.getCells())
+			cellText.append(cellText.length() == 0 ? "" : " ").append(cell);
+		TextField cells = new TextField(cellText.toString());
+		TextField step = new TextField(breakpoints.getAtStep() == Breakpoints.NO_STEP ? "" : Long.toString(breakpoints.getAtStep()));
+
+		GridPane grid = new GridPane();
+		grid.setHgap(10);
+		grid.setVgap(10);
+		grid.add(new Label("After transitions"), 0, 0);
+		grid.add(transitions, 1, 0);
+		grid.add(new Label("Reading any of"), 0, 1);
+		grid.add(read, 1, 1);
+		grid.add(new Label("Writing any of"), 0, 2);
+		grid.add(written, 1, 2);
+		grid.add(new Label("Writing cells"), 0, 3);
+		grid.add(cells, 1, 3);
+		grid.add(new Label("At step"), 0, 4);
+		grid.add(step, 1, 4);
+		breakWindow.getDialogPane().setContent(grid);
+
+		Optional<ButtonType> result = breakWindow.showAndWait();
+		if (!result.isPresent() || result.get() != ButtonType.OK)
+			return;
+
+		try {
+			Breakpoints b = new Breakpoints();
+			b.getTransitions().addAll(transitions.getSelectionModel().getSelectedItems());
+			for (char c : read.getText().toCharArray())
+				b.getRead().add(c);
+			for (char c : written.getText().toCharArray())
+				b.getWritten().add(c);
+			for (String cell : cells.getText().trim().split("[\\s,]+")) {
+				if (!cell.isEmpty())
+					b.getCells().add(Integer.parseInt(cell));
+			}
+			if (!step.getText().trim().isEmpty())
+				b.setAtStep(parseLimit(step.getText()));
+			breakpoints = b;
+		} catch (NumberFormatException e) {
+			Alert alert = new Alert(Alert.AlertType.WARNING);
+			alert.setTitle("Invalid breakpoint");
+			alert.setContentText("Cells and steps must be whole numbers.");
+			alert.initOwner(window);
+			alert.initModality(Modality.APPLICATION_MODAL);
+			alert.showAndWait();
+		}
+	}
+
+	// Symbols typed one after another, no separators, so a blank can be watched too
+	private static String symbolText(Set<Character> symbols) {
+		StringBuilder text = new StringBuilder();
+		for (char c : symbols)
+			text.append(c);
+		return text.toString();
+	}
+
+	private static String limitText(long limit) {
+		return (limit == RunBudget.UNLIMITED) ? "" : Long.toString(limit);
+	}
+
+	private static long parseLimit(String text) {
+		if (text.trim().isEmpty())
+			return RunBudget.UNLIMITED;
+		long limit = Long.parseLong(text.trim());
+		if (limit <= 0)
+			throw new NumberFormatException(text);
+		return limit;
+	}
+
 	// Function to delete state
 	private void deleteState(State state){
-		editorSpace.getChildren().removeAll(state.getCircle(), state.getLabel());
+		editorSpace.getChildren().removeAll(StateView.of(state).getCircle(), StateView.of(state).getLabel());
 
 		currentMachine.getTransitions().removeAll(state.getTransition());
 
 		for(Transition t : state.getTransition()){
-			editorSpace.getChildren().removeAll(t.getPath().getAllNodes());
-			currentMachine.getPaths().remove(t.getPath());
-			t.setPath(null);
+			editorSpace.getChildren().removeAll(Path.of(t).getAllNodes());
+			paths.remove(Path.of(t));
+			t.setView(null);
 		}
 		state.getTransition().clear();
 
-		state.setCircle(null);
-		state.setLabel(null);
+		StateView.of(state).setCircle(null);
+		StateView.of(state).setLabel(null);
 
 		if (currentMachine.getStartState() == state){
-		    System.out.printf("State %s is start removing...", state.getName());
+		    Trace.debug("State %s is start removing...", state.getName());
 			currentMachine.setStartState(null);
 			editorSpace.getChildren().remove(startTriangle);
 		}
 
 		if (state.isAccept())
-			editorSpace.getChildren().remove(state.getAcceptCircle());
+			editorSpace.getChildren().remove(StateView.of(state).getAcceptCircle());
 
 		currentMachine.deleteState(state);
 		deletedValues.add(Integer.parseInt(state.getName()));
@@ -912,51 +1275,79 @@ class Editor {
 		for(Node b : args)
 			b.setDisable(true);
 
-		Tester tester = new Tester();
+		// Runs are drawn on the first tape
+		if(shownTape != 0)
+			showTape(0);
+
+		Tester tester = new Tester(currentMachine);
+		tester.setBudget(runBudget);
+		tester.setBreakpoints(breakpoints);
+		tester.setCountHits(showHeatmap);
+		tester.setDetectLoops(detectLoops);
+		clearHeatmap();
 
 		if(currentMachine.getTape().getSize() < 0){
 			currentMachine.getTape().initTape(new ArrayList<>(' '));
 		}
 
-		if(currentMachine.getSpeed() == -1){
+		// Step mode keeps its history and exploring its branches with the
+		// single-tape engines
+		if((currentMachine.getSpeed() == Machine.MANUAL || currentMachine.getSpeed() == Machine.EXPLORE)
+				&& currentMachine.getTapeCount() > 1){
+			Alert alert = new Alert(Alert.AlertType.INFORMATION);
+			alert.setTitle("Multi-tape machine");
+			alert.setContentText(String.format("%s only works on one-tape machines. Pick a speed to run this %d-tape machine.",
+					currentMachine.getSpeed() == Machine.MANUAL ? "Manual control" : "Exploring all branches",
+					currentMachine.getTapeCount()));
+			alert.initOwner(window);
+			alert.initModality(Modality.APPLICATION_MODAL);
+			alert.showAndWait();
+			for(Node b : args)
+				b.setDisable(false);
+			return;
+		}
+
+		if(currentMachine.getSpeed() == Machine.MANUAL){
 			ObjectExpression<Font> textTrack = Bindings.createObjectBinding(
 					() -> Font.font(Math.min(editorSpace.getWidth() / 55, 20)), editorSpace.widthProperty());
 
-			Text t = new Text( "<Right Arrow> Advance one state  <Left Arrow> Back one state  <Esc> Stop Machine");
+			Text t = new Text( "<Right Arrow> Advance one state  <Left Arrow> Back one state  <G> Go to step  <Esc> Stop Machine");
 			t.xProperty().bind(editorSpace.widthProperty().divide(10));
 			t.yProperty().bind(editorSpace.heightProperty());
 			t.fontProperty().bind(textTrack);
 			editorSpace.getChildren().add(t);
 
-			ArrayList<MachineStep> machineSteps = new ArrayList<>();
+			// Steps can be undone and jumped to without keeping every one of them
+			CompiledMachine compiled = CompiledMachine.compile(currentMachine);
+			StepHistory history = new StepHistory(
+					new Execution(compiled, currentMachine.getTape(), compiled.getStartState()));
 
-			currentMachine.getTape().centerTapeDisplay();
-			currentMachine.getTape().refreshTapeDisplay();
+			tapeView.centerTapeDisplay();
+			tapeView.refreshTapeDisplay();
 
 			EventHandler<KeyEvent> keyPress = new EventHandler<KeyEvent>() {
+				// Move the highlight to wherever the history now is
+				private void showStep(State before) {
+					StateView.of(before).resetFill();
+					StateView.of(compiled.getState(history.getExecution().getState())).getCircle().setFill(Color.GREENYELLOW);
+					tapeView.centerTapeDisplay();
+					tapeView.refreshTapeDisplay();
+				}
+
 				@Override
 				public void handle(KeyEvent keyEvent) {
+					State currentState = compiled.getState(history.getExecution().getState());
+
 					if (keyEvent.getCode() == KeyCode.ESCAPE) {
 						thisButton.fire();
-						System.out.println("ESC");
+						Trace.debug("ESC");
 
 						keyEvent.consume();
 					}
 					else if(keyEvent.getCode() == KeyCode.RIGHT) {
-						State currentState;
+						Trace.debug("Current State = %s", currentState.getName());
 
-						if(machineSteps.size() == 0){
-							currentState = currentMachine.getStartState();
-						}
-						else{
-							System.out.println(machineSteps.get(machineSteps.size()-1).getTransition().toString());
-							currentState = machineSteps.get(machineSteps.size()-1).getTransition().getToState();
-						}
-
-						System.out.printf("Current State = %s\n", currentState.getName());
-						Transition next = tester.nextTransition(currentState, currentMachine.getTape());
-
-						if(next == null) {
+						if(history.forward() == CompiledMachine.NONE) {
 							Alert alert = new Alert(Alert.AlertType.ERROR);
 							alert.initOwner(window);
 							alert.initModality(Modality.APPLICATION_MODAL);
@@ -970,80 +1361,51 @@ class Editor {
 								alert.setContentText(tester.getFailReason());
 							}
 
-							currentMachine.getTape().centerTapeDisplay();
-							currentMachine.getTape().refreshTapeDisplay();
+							tapeView.centerTapeDisplay();
+							tapeView.refreshTapeDisplay();
 
 							alert.showAndWait();
 							keyEvent.consume();
 							return;
 						}
 
-						System.out.printf("Next = %c %c %s\n", next.getReadChar(), next.getWriteChar(), next.getMoveDirection().toString());
-						machineSteps.add(new MachineStep(next, currentMachine.getTape().currentTapeVal()));
-
-						next.getFromState().getCircle().setFill(next.getFromState().getBaseColor());
-						next.getToState().getCircle().setFill(Color.GREENYELLOW);
-
-						if(next.getWriteChar() != '~'){
-							try{
-								currentMachine.getTape().setTape(next.getWriteChar());
-							} catch (Exception e){
-								showException(e);
-							}
-						}
-
-						switch(machineSteps.get(machineSteps.size()-1).getTransition().getMoveDirection()) {
-							case LEFT:
-								currentMachine.getTape().left();
-								break;
-							case RIGHT:
-								currentMachine.getTape().right();
-								break;
-							case STAY:
-								break;
-						}
-
-						currentMachine.getTape().centerTapeDisplay();
-						currentMachine.getTape().refreshTapeDisplay();
+						Transition next = compiled.getTransition(history.getExecution().getLastTransition());
+						Trace.debug("Next = %c %c %s", next.getReadChar(), next.getWriteChar(), next.getMoveDirection().toString());
 
+						showStep(currentState);
 						keyEvent.consume();
 					}
 					else if(keyEvent.getCode() == KeyCode.LEFT){
-						System.out.println("Left");
-						if(machineSteps.size() == 0){
+						Trace.debug("Left");
+						if(!history.back()){
 							return;
 						}
 
-						MachineStep lastStep = machineSteps.get(machineSteps.size()-1);
-						System.out.printf("Next = %c %c %s\n", lastStep.getTransition().getReadChar(), lastStep.getTransition().getWriteChar(), lastStep.getTransition().getMoveDirection().toString());
-
-
-						lastStep.getTransition().getToState().getCircle().setFill(lastStep.getTransition().getToState().getBaseColor());
-
-						switch(lastStep.getTransition().getMoveDirection()){
-							case LEFT:
-								currentMachine.getTape().right();
-								break;
-							case RIGHT:
-								currentMachine.getTape().left();
-								break;
-							case STAY:
-								break;
-						}
-
-						try {
-							currentMachine.getTape().setTape(lastStep.getChar());
-						} catch (Exception e){
-							showException(e);
+						showStep(currentState);
+						keyEvent.consume();
+					}
+					else if(keyEvent.getCode() == KeyCode.G){
+						// Jump straight to any step, backwards or forwards
+						TextInputDialog goTo = new TextInputDialog(Long.toString(history.getStep()));
+						goTo.initOwner(window);
+						goTo.setTitle("Go to step");
+						goTo.setHeaderText(String.format("Currently at step %d", history.getStep()));
+						goTo.setContentText("Step:");
+						Optional<String> step = goTo.showAndWait();
+						if(step.isPresent()){
+							try {
+								long n = Long.parseLong(step.get().trim());
+								if(n >= 0 && !history.seek(n)) {
+									Alert alert = new Alert(Alert.AlertType.INFORMATION);
+									alert.initOwner(window);
+									alert.setHeaderText(String.format("The machine halts at step %d", history.getStep()));
+									alert.showAndWait();
+								}
+							} catch (NumberFormatException e) {
+								// Leave the machine where it is
+							}
+							showStep(currentState);
 						}
-
-						lastStep.getTransition().getFromState().getCircle().setFill(Color.GREENYELLOW);
-
-						currentMachine.getTape().centerTapeDisplay();
-						currentMachine.getTape().refreshTapeDisplay();
-
-						machineSteps.remove(machineSteps.size()-1);
-
 						keyEvent.consume();
 					}
 					t.requestFocus();
@@ -1054,27 +1416,42 @@ class Editor {
 			thisButton.setOnAction(event -> {
 				editorSpace.getChildren().remove(t);
 
-				currentMachine.getTape().refreshTapeDisplay();
+				tapeView.refreshTapeDisplay();
 
 				for (State s : currentMachine.getStates())
-					s.getCircle().setFill(s.getBaseColor());
+					StateView.of(s).resetFill();
 
 				for (Node b : args)
 					b.setDisable(false);
+				journalTapes();
 
-				machineSteps.clear();
 				window.removeEventHandler(KeyEvent.KEY_RELEASED, keyPress);
 
-				System.out.println(machineSteps.size());
 				thisButton.setText("Run Machine");
 				thisButton.setOnAction(event1 -> runMachine(thisButton, args));
 			});
 
 			window.addEventHandler(KeyEvent.KEY_RELEASED, keyPress);
-			currentMachine.getStartState().getCircle().setFill(Color.GREENYELLOW);
+			StateView.of(currentMachine.getStartState()).getCircle().setFill(Color.GREENYELLOW);
 			t.requestFocus();
 		}
 		else {
+			RenderPipeline pipeline = new RenderPipeline(tapeView);
+			tester.setStepListener(pipeline);
+
+			// Turbo runs only redraw when they stop, so show how far along they are
+			Text progress = new Text();
+			if(currentMachine.getSpeed() == Machine.TURBO){
+				ObjectExpression<Font> textTrack = Bindings.createObjectBinding(
+						() -> Font.font(Math.min(editorSpace.getWidth() / 55, 20)), editorSpace.widthProperty());
+				progress.xProperty().bind(editorSpace.widthProperty().divide(10));
+				progress.yProperty().bind(editorSpace.heightProperty());
+				progress.fontProperty().bind(textTrack);
+				editorSpace.getChildren().add(progress);
+				pipeline.setProgressText(progress);
+				tester.setProgressListener(pipeline);
+			}
+
 			Task<Void> task = new Task<Void>() {
 				@Override
 				public Void call() {
@@ -1084,8 +1461,7 @@ class Editor {
 
 							trackerState = tester.runMachine(currentMachine, trackerState);
 
-							while (trackerState.isDebug()) {
-								trackerState.getCircle().setFill(Color.GREENYELLOW);
+							while (tester.atBreakpoint()) {
 								final CountDownLatch waitForInput = new CountDownLatch(1);
 								Platform.runLater(new Runnable() {
 									@Override
@@ -1099,19 +1475,24 @@ class Editor {
 										ButtonType Cancel = new ButtonType("Stop");
 
 										debugLog.setHeaderText("Breakpoint hit");
+										debugLog.setContentText(String.format("%s in state %s",
+												tester.describeBreakpoint(), trackerState.getName()));
 										debugLog.getButtonTypes().setAll(moreDebug, lessDebug, Cancel);
 										Optional<ButtonType> method = debugLog.showAndWait();
 										if (method.get() == moreDebug) {
-											trackerState.setDebug(true);
-											trackerState.getCircle().setStroke(Color.RED);
 											tester.setCont(true);
 										} else if (method.get() == lessDebug) {
-											trackerState.setDebug(false);
-											trackerState.getCircle().setStroke(Color.BLACK);
+											// Turn off the state's breakpoint if that is what fired, otherwise the rest
+											if (trackerState.isDebug()) {
+												trackerState.setDebug(false);
+												StateView.of(trackerState).getCircle().setStroke(Color.BLACK);
+											} else {
+												breakpoints.clear();
+											}
 											tester.setCont(true);
 										}
 										else{
-											trackerState.getCircle().setFill(trackerState.getBaseColor());
+											StateView.of(trackerState).resetFill();
 											tester.setCont(false);
 										}
 
@@ -1132,6 +1513,9 @@ class Editor {
 						tester.setFailReason("Machine has no start state!");
 					}
 				}
+			catch (InterruptedException e) {
+						// Stopped from the run button, setOnCancelled tidies up
+					}
 			catch (Exception e) {
 						showException(e);
 					}
@@ -1139,7 +1523,13 @@ class Editor {
 				}
 			};
 			task.setOnSucceeded(event -> {
-				currentMachine.getTape().refreshTapeDisplay();
+				pipeline.stop();
+				editorSpace.getChildren().remove(progress);
+				tapeView.refreshTapeDisplay();
+
+				Heatmap heatmap = tester.getHeatmap();
+				if (heatmap != null)
+					showHeatmap(heatmap);
 
 				Alert alert = new Alert(Alert.AlertType.ERROR);
 				alert.initOwner(window);
@@ -1149,10 +1539,16 @@ class Editor {
 				if (tester.didSucceed()) {
 					alert.setGraphic(new ImageView(this.getClass().getResource("checkmark.png").toString()));
 					alert.setHeaderText("The machine has finished successfully");
+					List<String> path = tester.getAcceptingPath();
+					addStepList(alert, String.format("The accepting branch took %d steps:", path.size()), path);
 				} else {
 					alert.setHeaderText("The machine has finished unsuccessfully");
 					alert.setContentText(tester.getFailReason());
+					addRecentSteps(alert, tester.getRecentSteps());
 				}
+				if (heatmap != null && alert.getDialogPane().getExpandableContent() == null)
+					addStepList(alert, "Busiest transitions, with the number of times each was taken:",
+							heatmap.describeBusiest(20));
 
 				alert.showAndWait();
 
@@ -1161,15 +1557,19 @@ class Editor {
 
 				for (Node b : args)
 					b.setDisable(false);
+				journalTapes();
 			});
 			task.setOnCancelled(event -> {
-				currentMachine.getTape().refreshTapeDisplay();
+				pipeline.stop();
+				editorSpace.getChildren().remove(progress);
+				tapeView.refreshTapeDisplay();
 
 				for (State s : currentMachine.getStates())
-					s.getCircle().setFill(s.getBaseColor());
+					StateView.of(s).resetFill();
 
 				for (Node b : args)
 					b.setDisable(false);
+				journalTapes();
 
 				thisButton.setText("Run Machine");
 				thisButton.setOnAction(event1 -> runMachine(thisButton, args));
@@ -1178,6 +1578,7 @@ class Editor {
 			thisButton.setText("Stop Machine");
 			thisButton.setOnAction(event -> task.cancel());
 
+			pipeline.start();
 			new Thread(task).start();
 		}
 	}
@@ -1194,21 +1595,21 @@ class Editor {
 	}
 
 	private void redrawState(State s) {
-		editorSpace.getChildren().removeAll(s.getCircle(), s.getLabel());
-		if(s.getAcceptCircle()!= null)
-			editorSpace.getChildren().remove(s.getAcceptCircle());
+		editorSpace.getChildren().removeAll(StateView.of(s).getCircle(), StateView.of(s).getLabel());
+		if(StateView.of(s).getAcceptCircle()!= null)
+			editorSpace.getChildren().remove(StateView.of(s).getAcceptCircle());
 
 
-		Circle c = new Circle(s.getX(), s.getY(), circleRadius, s.getBaseColor());
+		Circle c = new Circle(s.getX(), s.getY(), circleRadius, StateView.of(s).getBaseColor());
 		c.setId(s.getName());
 		c.setStrokeWidth(2);
 		c.setStroke(Color.BLACK);
-		s.setCircle(c);
+		StateView.of(s).setCircle(c);
 		Text t = new Text(s.getName());
 		t.setId(s.getName());
 		t.setX(c.getCenterX() - (t.getLayoutBounds().getWidth() / 2));
 		t.setY(c.getCenterY() + (t.getLayoutBounds().getHeight() / 4));
-		s.setLabel(t);
+		StateView.of(s).setLabel(t);
 		// Set Create State and add it to the Node's user data
 		// so it is easy to find if clicked on
 		c.setUserData(s);
@@ -1217,16 +1618,16 @@ class Editor {
 		c.setOnContextMenuRequested(event1 -> contextMenu.show(c, event1.getScreenX(), event1.getScreenY()));
 		t.setOnContextMenuRequested(event2 -> contextMenu.show(t, event2.getScreenX(), event2.getScreenY()));
 
-		editorSpace.getChildren().addAll(s.getCircle(), s.getLabel());
+		editorSpace.getChildren().addAll(StateView.of(s).getCircle(), StateView.of(s).getLabel());
 
 		if (s.isAccept()) {
-			Circle ca = new Circle(s.getCircle().getCenterX(), s.getCircle().getCenterY()
+			Circle ca = new Circle(StateView.of(s).getCircle().getCenterX(), StateView.of(s).getCircle().getCenterY()
 					, circleRadius * 1.25, null);
 			ca.setStrokeWidth(2);
 			ca.setStroke(Color.BLACK);
 
-			s.setAcceptCircle(ca);
-			editorSpace.getChildren().add(s.getAcceptCircle());
+			StateView.of(s).setAcceptCircle(ca);
+			editorSpace.getChildren().add(StateView.of(s).getAcceptCircle());
 		}
 
 		if (s.isStart() || currentMachine.getStartState() == s) {
@@ -1234,9 +1635,9 @@ class Editor {
 			startTriangle.getPoints().clear();
 
 			startTriangle.getPoints().addAll(
-					s.getCircle().getCenterX() - circleRadius - 1, s.getCircle().getCenterY(),
-					s.getCircle().getCenterX() - 2 * circleRadius, s.getCircle().getCenterY() - circleRadius,
-					s.getCircle().getCenterX() - 2 * circleRadius, s.getCircle().getCenterY() + circleRadius
+					StateView.of(s).getCircle().getCenterX() - circleRadius - 1, StateView.of(s).getCircle().getCenterY(),
+					StateView.of(s).getCircle().getCenterX() - 2 * circleRadius, StateView.of(s).getCircle().getCenterY() - circleRadius,
+					StateView.of(s).getCircle().getCenterX() - 2 * circleRadius, StateView.of(s).getCircle().getCenterY() + circleRadius
 			);
 
 			startTriangle.setFill(null);
@@ -1252,26 +1653,26 @@ class Editor {
 	    for(Transition t : tl){
 			//System.out.printf("Removing Transition %s -> %s, %c ; %c ; %c\n", t.getFromState().getName(), t.getToState().getName(),
 			//		t.getReadChar(), t.getWriteChar(), t.getMoveDirection().toString().charAt(0));
-	        if(t.getPath() == null)
+	        if(Path.of(t) == null)
 	        	continue;
 
-			currentMachine.getPaths().remove(t.getPath());
-			System.out.println("Delete" + t.getPath().toString());
-			editorSpace.getChildren().removeAll(t.getPath().getAllNodes());
+			paths.remove(Path.of(t));
+			Trace.debug("Delete%s", Path.of(t).toString());
+			editorSpace.getChildren().removeAll(Path.of(t).getAllNodes());
 
 			for(Transition t2 : tl){
 			    if(t2 == t)
 			    	continue;
-				if(t2.getPath() == t.getPath())
-					t2.setPath(null);
+				if(Path.of(t2) == Path.of(t))
+					t2.setView(null);
 			}
 
-			t.setPath(null);
+			t.setView(null);
 		}
 
 	    for(Transition t : tl){
 			Path path = null;
-			for(Path p : currentMachine.getPaths()){
+			for(Path p : paths){
 				if(p.compareTo(t.getFromState(), t.getToState())) {
 					path = p;
 					break;
@@ -1279,10 +1680,10 @@ class Editor {
 			}
 			if (path == null){
 				path = new Path(t.getFromState(), t.getToState());
-				currentMachine.getPaths().add(path);
+				paths.add(path);
 			}
 
-			t.setPath(path);
+			t.setView(path);
 			ArrayList<Node> nodes = path.addTransition(t);
 			editorSpace.getChildren().addAll(nodes);
 
@@ -1293,28 +1694,28 @@ class Editor {
 	}
 
 	private void redrawAllPaths(){
-		for(Path p : currentMachine.getPaths())
+		for(Path p : paths)
 			editorSpace.getChildren().removeAll(p.getAllNodes());
 
-		currentMachine.getPaths().clear();
+		paths.clear();
 
 		for (Transition t : currentMachine.getTransitions()){
 			Path path = null;
-			for(Path p : currentMachine.getPaths()){
+			for(Path p : paths){
 				if(p.compareTo(t.getFromState(), t.getToState())) {
 					path = p;
-					System.out.println("Found Path");
+					Trace.debug("Found Path");
 					break;
 				}
 			}
 
 			if (path == null){
 				path = new Path(t.getFromState(), t.getToState());
-				System.out.println("New Path");
-				currentMachine.getPaths().add(path);
+				Trace.debug("New Path");
+				paths.add(path);
 			}
 
-			t.setPath(path);
+			t.setView(path);
 			ArrayList<Node> nodes = path.addTransition(t);
 			editorSpace.getChildren().addAll(nodes);
 
@@ -1327,8 +1728,76 @@ class Editor {
 	}
 
 
+	// Let a failed run show the steps that led up to it
+	private void addRecentSteps(Alert alert, List<String> steps){
+		addStepList(alert, String.format("The last %d steps were:", steps.size()), steps);
+	}
+
+	// Tint every state and transition by how often the last run used it,
+	// from its usual colour when unused to red for the busiest
+	private void showHeatmap(Heatmap heatmap){
+		CompiledMachine compiled = heatmap.getMachine();
+
+		long[] visits = heatmap.getStateVisits();
+		long maxVisits = 0;
+		for (long v : visits)
+			maxVisits = Math.max(maxVisits, v);
+		for (int s = 0; s < visits.length; s++) {
+			Circle c = StateView.of(compiled.getState(s)).getCircle();
+			if (c != null)
+				c.setFill(StateView.of(compiled.getState(s)).getBaseColor().interpolate(Color.RED, Heatmap.level(visits[s], maxVisits)));
+		}
+
+		// A path is as hot as its busiest transition
+		long maxHits = heatmap.getMaxTransitionHits();
+		IdentityHashMap<Path, Double> pathLevels = new IdentityHashMap<>();
+		for (int t = 0; t < compiled.getTransitionCount(); t++) {
+			Transition transition = compiled.getTransition(t);
+			Path p = Path.of(transition);
+			if (p == null)
+				continue;
+			double level = Heatmap.level(heatmap.getTransitionHits(t), maxHits);
+			p.setTransitionFillColor(transition, Color.BLACK.interpolate(Color.RED, level));
+			pathLevels.merge(p, level, Math::max);
+		}
+		for (Path p : pathLevels.keySet())
+			p.setStrokeColor(Color.BLACK.interpolate(Color.RED, pathLevels.get(p)));
+	}
+
+	private void clearHeatmap(){
+		for (State s : currentMachine.getStates())
+			if (StateView.of(s).getCircle() != null)
+				StateView.of(s).resetFill();
+		for (Path p : paths) {
+			p.setTextFillColor(Color.BLACK);
+			p.setStrokeColor(Color.BLACK);
+		}
+	}
+
+	private void addStepList(Alert alert, String heading, List<String> steps){
+		if(steps.isEmpty())
+			return;
+
+		Label label = new Label(heading);
+
+		TextArea textArea = new TextArea(String.join("\n", steps));
+		textArea.setEditable(false);
+		textArea.setMaxWidth(Double.MAX_VALUE);
+		textArea.setMaxHeight(Double.MAX_VALUE);
+		GridPane.setVgrow(textArea, Priority.ALWAYS);
+		GridPane.setHgrow(textArea, Priority.ALWAYS);
+
+		GridPane expContent = new GridPane();
+		expContent.setMaxWidth(Double.MAX_VALUE);
+		expContent.add(label, 0, 0);
+		expContent.add(textArea, 0, 1);
+
+		alert.getDialogPane().setExpandableContent(expContent);
+		textArea.positionCaret(textArea.getLength());
+	}
+
 	public void showException(Exception e){
-		System.out.println(e);
+		Trace.error("%s", e);
 		Alert alert = new Alert(Alert.AlertType.ERROR);
 		alert.initOwner(window);
 		alert.initModality(Modality.APPLICATION_MODAL);
@@ -1372,8 +1841,8 @@ class Editor {
 		if(!(currentMachine.getStates().isEmpty())) {
 			State minState = null;
 			for (State state : currentMachine.getStates()) {
-				double dist = distForm(event.getX(), state.getCircle().getCenterX(),
-						event.getY() , state.getCircle().getCenterY());
+				double dist = distForm(event.getX(), StateView.of(state).getCircle().getCenterX(),
+						event.getY() , StateView.of(state).getCircle().getCenterY());
 				if(min > dist){
 					min = dist;
 					minState = state;
@@ -0,0 +1,140 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.stage.FileChooser;
+import javafx.stage.Modality;
+import javafx.stage.Window;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+// Asks the user which file to save a machine to or load one from, and
+// reports problems in alerts. Reading and writing is SaveLoad's.
+public class MachineFileChooser {
+    // The file m was saved to, or null if it was not
+    public static File saveMachine(Window window, Machine m){
+        /* Get the file to save to from user. */
+        FileChooser chooser = new FileChooser();
+        FileChooser.ExtensionFilter filter = new FileChooser.ExtensionFilter("Text Files", "*.txt");
+        FileChooser.ExtensionFilter binary = new FileChooser.ExtensionFilter("STEM Binary Files", "*" + BinaryMachineFile.EXTENSION);
+        chooser.getExtensionFilters().addAll(filter, binary);
+        File file = chooser.showSaveDialog(window);
+
+        if(file != null) {
+            /* Save the file, as binary if that was picked or the name asks for it */
+            try {
+                if (chooser.getSelectedExtensionFilter() == binary || file.getName().endsWith(BinaryMachineFile.EXTENSION))
+                    new SaveLoad().saveBinaryFile(file, m);
+                else
+                    new SaveLoad().saveFile(file, m);
+                return file;
+            }
+            catch (IOException e) {
+                /* Error occured during saving. */
+                Alert saveError = new Alert(Alert.AlertType.ERROR);
+                saveError.initOwner(window);
+                saveError.initModality(Modality.APPLICATION_MODAL);
+                saveError.setTitle("Error Saving");
+                saveError.setHeaderText("There was an error trying to save this machine.");
+                saveError.showAndWait();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // A machine file to load, null if none was picked
+    public static File chooseMachineFile(Window window){
+        FileChooser chooser = new FileChooser();
+        FileChooser.ExtensionFilter filter = new FileChooser.ExtensionFilter("Text Files", "*.txt");
+        FileChooser.ExtensionFilter binary = new FileChooser.ExtensionFilter("STEM Binary Files", "*" + BinaryMachineFile.EXTENSION);
+        chooser.getExtensionFilters().addAll(filter, binary);
+
+        chooser.setTitle("Pick a Turing Machine file");
+        return chooser.showOpenDialog(window);
+    }
+
+    // The machine in file, or null if it could not be read
+    public static Machine loadMachine(Window window, File file){
+        if(file != null) {
+            /* Reads in the file */
+
+            try {
+                Machine read = new SaveLoad().loadFile(file);
+                if (read != null) {
+                    return read;
+                } else {
+                    // Not a valid header format, display a message and return false
+                    Alert invalidFileType = new Alert(Alert.AlertType.INFORMATION);
+                    invalidFileType.setTitle("Invalid File");
+                    invalidFileType.setHeaderText("Incorrect File header.");
+                    invalidFileType.initOwner(window);
+                    invalidFileType.initModality(Modality.APPLICATION_MODAL);
+                    invalidFileType.showAndWait();
+
+                }
+
+            }
+            catch (IOException e) {
+                /* Error occured. */
+                Alert fileError = new Alert(Alert.AlertType.ERROR);
+                fileError.setTitle("File Error");
+                fileError.setHeaderText("Ran into a problem loading that file!");
+                fileError.setContentText(e.getMessage());
+                fileError.initOwner(window);
+                fileError.initModality(Modality.APPLICATION_MODAL);
+                fileError.showAndWait();
+
+            }
+        }
+        return null;
+    }
+
+    // The machine in file with the edits journaled since it was last saved,
+    // if there are any and the user wants them back. Null otherwise.
+    public static Machine recoverMachine(Window window, File file){
+        Machine recovered;
+        try {
+            recovered = MachineJournal.recover(file);
+        }
+        catch (IOException e) {
+            Trace.error("Could not recover %s: %s", file, e.getMessage());
+            return null;
+        }
+        if (recovered == null)
+            return null;
+
+        Alert recover = new Alert(Alert.AlertType.CONFIRMATION, "STEM closed with unsaved changes to this machine. Recover them?",
+                ButtonType.YES, ButtonType.NO);
+        recover.setTitle("Recover Unsaved Changes");
+        recover.initOwner(window);
+        recover.initModality(Modality.APPLICATION_MODAL);
+        Optional<ButtonType> answer = recover.showAndWait();
+        return (answer.isPresent() && answer.get() == ButtonType.YES) ? recovered : null;
+    }
+
+    // A tape file to start the tape with, see TapeFile. Null if none was picked.
+    public static File chooseTapeFile(Window window){
+        FileChooser chooser = new FileChooser();
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Tape Files", "*.tape", "*.txt"),
+                new FileChooser.ExtensionFilter("All Files", "*"));
+        chooser.setTitle("Pick a tape file");
+        return chooser.showOpenDialog(window);
+    }
+}
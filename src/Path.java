@@ -16,6 +16,7 @@
 import javafx.scene.Node;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
+import javafx.scene.shape.Circle;
 import javafx.scene.shape.CubicCurve;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Text;
@@ -46,6 +47,11 @@ public class Path {
         belowTexts = new ArrayList<>();
     }
 
+    // The path t is drawn on, null if it is not drawn
+    public static Path of(Transition t){
+        return (Path) t.getView();
+    }
+
     public ArrayList<Node> addTransition(Transition t){
         ArrayList<Node> ret = new ArrayList<>();
 
@@ -53,29 +59,27 @@ public class Path {
         State toState = t.getToState();
 
         if(toState == fromState){
+            Circle circle = StateView.of(fromState).getCircle();
             if(curve == null){
-                curve = new CubicCurve(fromState.getCircle().getCenterX(), fromState.getCircle().getCenterY(),
-                        fromState.getCircle().getCenterX()-4*fromState.getCircle().getRadius(),
-                        fromState.getCircle().getCenterY()-4*fromState.getCircle().getRadius(),
-                        fromState.getCircle().getCenterX()+4*fromState.getCircle().getRadius(),
-                        fromState.getCircle().getCenterY()-4*fromState.getCircle().getRadius(),
-                        fromState.getCircle().getCenterX(), fromState.getCircle().getCenterY());
+                curve = new CubicCurve(circle.getCenterX(), circle.getCenterY(),
+                        circle.getCenterX()-4*circle.getRadius(),
+                        circle.getCenterY()-4*circle.getRadius(),
+                        circle.getCenterX()+4*circle.getRadius(),
+                        circle.getCenterY()-4*circle.getRadius(),
+                        circle.getCenterX(), circle.getCenterY());
 
                 curve.setFill(null);
                 curve.setStroke(Color.BLACK);
 
                 ret.add(curve);
             }
-            char readChar = (t.getReadChar() == ' ') ? '☐' : t.getReadChar();
-            char writeChar = (t.getWriteChar() == ' ') ? '☐' : t.getWriteChar();
 
-            Text newText = new Text(String.format("%c ; %c ; %c",
-                    readChar, writeChar, t.getMoveDirection().toString().charAt(0)));
+            Text newText = new Text(t.label());
 
             newText.setTextAlignment(TextAlignment.CENTER);
 
-            newText.setX(fromState.getCircle().getCenterX() - 1.6 * distance);
-            newText.setY(fromState.getCircle().getCenterY() - 3.25*fromState.getCircle().getRadius() - (aboveTexts.size()  * distance));
+            newText.setX(circle.getCenterX() - 1.6 * distance);
+            newText.setY(circle.getCenterY() - 3.25*circle.getRadius() - (aboveTexts.size()  * distance));
 
             //System.out.printf("X: %f, Y: %f\n", newText.getX(), newText.getY());
 
@@ -121,11 +125,7 @@ public class Path {
             if ((fromState.getX() != toState.getX() && fromState.getX() < toState.getX())
                     || (fromState.getX() == toState.getX() && fromState.getY() < toState.getY())) {
 
-                char readChar = (t.getReadChar() == ' ') ? '☐' : t.getReadChar();
-                char writeChar = (t.getWriteChar() == ' ') ? '☐' : t.getWriteChar();
-
-                Text newText = new Text(String.format("%c ; %c ; %c -->",
-                        readChar, writeChar, t.getMoveDirection().toString().charAt(0)));
+                Text newText = new Text(t.label() + " -->");
 
                 newText.setTextAlignment(TextAlignment.CENTER);
 
@@ -142,11 +142,8 @@ public class Path {
 
                 ret.add(newText);
             } else {
-                char readChar = (t.getReadChar() == ' ') ? '☐' : t.getReadChar();
-                char writeChar = (t.getWriteChar() == ' ') ? '☐' : t.getWriteChar();
 
-                Text newText = new Text(String.format("<-- %c ; %c ; %c",
-                        readChar, writeChar, t.getMoveDirection().toString().charAt(0)));
+                Text newText = new Text("<-- " + t.label());
 
                 newText.setTextAlignment(TextAlignment.CENTER);
 
@@ -184,11 +181,8 @@ public class Path {
         String text;
 
         if(toState == fromState){
-            char readChar = (t.getReadChar() == ' ') ? '☐' : t.getReadChar();
-            char writeChar = (t.getWriteChar() == ' ') ? '☐' : t.getWriteChar();
 
-            text = String.format("%c ; %c ; %c",
-                    t.getReadChar(), t.getWriteChar(), t.getMoveDirection().toString().charAt(0));
+            text = t.label();
 
             for(Text curText : aboveTexts){
                 if (curText.getText().compareTo(text) == 0){
@@ -201,11 +195,7 @@ public class Path {
         if((fromState.getX() != toState.getX() && fromState.getX() < toState.getX())
                 || (fromState.getX() == toState.getX() && fromState.getY() < toState.getY()) ){
 
-            char readChar = (t.getReadChar() == ' ') ? '☐' : t.getReadChar();
-            char writeChar = (t.getWriteChar() == ' ') ? '☐' : t.getWriteChar();
-
-            text = String.format("%c ; %c ; %c -->",
-                    readChar, writeChar, t.getMoveDirection().toString().charAt(0));
+            text = t.label() + " -->";
 
             for(Text curText : aboveTexts){
                 if (curText.getText().compareTo(text) == 0){
@@ -216,11 +206,8 @@ public class Path {
             }
         }
         else {
-            char readChar = (t.getReadChar() == ' ') ? '☐' : t.getReadChar();
-            char writeChar = (t.getWriteChar() == ' ') ? '☐' : t.getWriteChar();
 
-            text = String.format("<-- %c ; %c ; %c",
-                    readChar, writeChar, t.getMoveDirection().toString().charAt(0));
+            text = "<-- " + t.label();
 
             for(Text curText : belowTexts) {
                 if (curText.getText().compareTo(text) == 0){
@@ -300,6 +287,23 @@ public class Path {
             t.setFill(paint);
     }
 
+    // Colour the label of one transition on this path
+    public void setTransitionFillColor(Transition t, Paint paint){
+        for (Text text : aboveTexts)
+            if (text.getUserData() == t)
+                text.setFill(paint);
+        for (Text text : belowTexts)
+            if (text.getUserData() == t)
+                text.setFill(paint);
+    }
+
+    public void setStrokeColor(Paint paint){
+        if(line != null)
+            line.setStroke(paint);
+        if(curve != null)
+            curve.setStroke(paint);
+    }
+
     private static double computeDegree(double x1, double x2, double y1, double y2){
         if (x1 != x2)
             return Math.toDegrees(Math.atan((y2-y1)/(x2-x1)));
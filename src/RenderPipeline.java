@@ -0,0 +1,101 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.text.Text;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// Hands the state of a running machine from the thread running it to the
+// FX thread. The machine publishes a RunSnapshot as often as it likes and
+// only the latest one is kept; once per pulse the FX thread draws whatever
+// is newest, so a fast machine never floods the event queue and never
+// touches the scene graph itself.
+public class RenderPipeline extends AnimationTimer implements Tester.StepListener, Tester.ProgressListener {
+    private final AtomicReference<RunSnapshot> latest = new AtomicReference<>();
+    private final AtomicReference<String> latestProgress = new AtomicReference<>();
+    private final TapeView tapeView;
+    private State lit;
+    private Text progressText;
+
+    // Read by the machine thread when it builds a snapshot
+    private volatile int windowWidth;
+
+    public RenderPipeline(TapeView tapeView) {
+        this.tapeView = tapeView;
+        this.windowWidth = tapeView.getVisibleCells();
+    }
+
+    // Called from the machine thread, replacing any snapshot not yet drawn
+    @Override
+    public void stepped(State state, Tape tape, long steps) {
+        latest.set(RunSnapshot.of(state, tape, steps, windowWidth));
+    }
+
+    // Where turbo runs show their progress, null to not show it
+    public void setProgressText(Text progressText) {
+        this.progressText = progressText;
+    }
+
+    // Called from the machine thread during turbo runs
+    @Override
+    public void progress(long steps, long elapsedNanos, int tapeLength) {
+        double perSecond = elapsedNanos > 0 ? steps * 1e9 / elapsedNanos : 0;
+        latestProgress.set(String.format("%,d steps   %,.0f steps/s   tape %,d cells",
+                steps, perSecond, tapeLength));
+    }
+
+    @Override
+    public void handle(long now) {
+        windowWidth = tapeView.getVisibleCells();
+        RunSnapshot snapshot = latest.getAndSet(null);
+        if (snapshot != null)
+            draw(snapshot);
+        String progress = latestProgress.getAndSet(null);
+        if (progress != null && progressText != null)
+            progressText.setText(progress);
+    }
+
+    // Draw the last snapshot and put the highlighted state back to normal
+    @Override
+    public void stop() {
+        super.stop();
+        RunSnapshot snapshot = latest.getAndSet(null);
+        if (snapshot != null)
+            draw(snapshot);
+        unlight();
+    }
+
+    private void draw(RunSnapshot snapshot) {
+        State s = snapshot.getState();
+        if (s != lit) {
+            unlight();
+            Circle circle = (s == null) ? null : StateView.of(s).getCircle();
+            if (circle != null)
+                circle.setFill(Color.GREENYELLOW);
+            lit = s;
+        }
+        tapeView.showSnapshot(snapshot);
+    }
+
+    private void unlight() {
+        StateView view = (lit == null) ? null : StateView.of(lit);
+        if (view != null && view.getCircle() != null)
+            view.resetFill();
+        lit = null;
+    }
+}
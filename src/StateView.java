@@ -0,0 +1,78 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.text.Text;
+
+// The nodes the editor draws a State with, kept as the state's view so
+// the model in stem-core never depends on JavaFX
+class StateView {
+	private final State state;
+	private Circle circle;
+	private Circle acceptCircle;
+	private Text label;
+
+	private StateView(State state){
+		this.state = state;
+	}
+
+	// The view of s, made empty the first time it is asked for
+	public static StateView of(State s){
+		Object view = s.getView();
+		if(!(view instanceof StateView)){
+			view = new StateView(s);
+			s.setView(view);
+		}
+		return (StateView) view;
+	}
+
+	public Circle getCircle(){
+		return circle;
+	}
+
+	public void setCircle(Circle circle){
+		this.circle = circle;
+	}
+
+	public Circle getAcceptCircle() {
+		return acceptCircle;
+	}
+
+	public void setAcceptCircle(Circle acceptCircle) {
+		this.acceptCircle = acceptCircle;
+	}
+
+	public Text getLabel() {
+		return label;
+	}
+
+	public void setLabel(Text label) {
+		this.label = label;
+	}
+
+	public Color getBaseColor(){
+		return Color.color(state.getRed(), state.getGreen(), state.getBlue(), state.getOpacity());
+	}
+
+	// Back to the state's own colour after being highlighted
+	public void resetFill(){
+		circle.setFill(getBaseColor());
+	}
+
+	public void setColor(Color c){
+		state.setColor(c.getRed(), c.getGreen(), c.getBlue(), c.getOpacity());
+	}
+}
@@ -15,7 +15,7 @@
 
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
-import javafx.beans.value.ObservableIntegerValue;
+import javafx.beans.binding.IntegerBinding;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
@@ -28,29 +28,13 @@ import javafx.scene.paint.Paint;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
-public class Tape{
+// Draws a Tape in the editor's tape area and redraws it when the tape changes.
+public class TapeView implements Tape.Listener {
+    private final Tape tape;
     private GridPane tapeDisplay;
     private GridPane headDisplay;
-    private final Lock l = new ReentrantLock();
     private Integer tapeDisplayOffset = 0;
-    private Integer tapeHead = 0;
-    ObservableIntegerValue tapeWidth;
-
-    private LinkedList<Character> tape = new LinkedList<>();
-
-    @Override
-    public String toString() {
-        String s = new String();
-        for(char c : tape) {
-            s += c;
-        }
-        return s;
-    }
+    IntegerBinding tapeWidth;
 
     public void incrementDisplayOffset() {
         tapeDisplayOffset++;
@@ -60,19 +44,39 @@ public class Tape{
     }
 
     public void centerTapeDisplay() {
-        tapeDisplayOffset = tapeHead - tapeWidth.get() / 2;
+        tapeDisplayOffset = tape.getTapeHead() - tapeWidth.get() / 2;
     }
 
+    // Only the cells on screen are copied out of the tape
     public void refreshTapeDisplay() {
+        draw(tape.window(tapeDisplayOffset, tapeWidth.get()), tapeDisplayOffset, tape.getTapeHead());
+    }
+
+    // Draw a snapshot of a running machine, centred on its head
+    public void showSnapshot(RunSnapshot snapshot) {
+        tapeDisplayOffset = snapshot.getWindowStart();
+        int head = snapshot.getHead();
+        char[] cells = new char[snapshot.getWindowWidth()];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = snapshot.cellAt(tapeDisplayOffset + i);
+        draw(cells, tapeDisplayOffset, head);
+    }
+
+    // Number of cells the tape area has room for
+    public int getVisibleCells() {
+        return tapeWidth.get();
+    }
+
+    // cells[0] is the cell at tape index cellsStart
+    private void draw(char[] cells, int cellsStart, int head) {
                 int index = tapeDisplayOffset;
-                Character[] tapeChars = getTapeAsArray();
-                int size = tapeChars.length;
                 for(Node n : tapeDisplay.getChildren()) {
                     if (n instanceof StackPane) {
                         for(Node b : ((StackPane) n).getChildren()) {
                             if (b instanceof Label) {
-                                if(index < size && index >= 0) {
-                                    ((Label) b).setText(tapeChars[index].toString());
+                                int i = index - cellsStart;
+                                if(i < cells.length && i >= 0) {
+                                    ((Label) b).setText(String.valueOf(cells[i]));
                                     ((Label) b).setFont(Font.font(20));
                                 }
                                 else {
@@ -80,7 +84,7 @@ public class Tape{
                                 }
                             }
                             if (b instanceof Rectangle) {
-                                if (index == tapeHead) ((Rectangle) b).setFill(Paint.valueOf("#CAE1F9"));
+                                if (index == head) ((Rectangle) b).setFill(Paint.valueOf("#CAE1F9"));
                                 else ((Rectangle) b).setFill(Color.TRANSPARENT);
                             }
                         }
@@ -92,7 +96,7 @@ public class Tape{
                     if (n instanceof StackPane) {
                         for (Node b : ((StackPane) n).getChildren()) {
                             if (b instanceof Label) {
-                                if (index == getTapeHead()) {
+                                if (index == head) {
                                     ((Label) b).setText("↓");
                                     ((Label) b).setFont(Font.font(20));
                                 } else {
@@ -106,20 +110,15 @@ public class Tape{
 
     }
 
-    public void setDisplay(GridPane tape, GridPane head, BorderPane tapeArea) {
+    public TapeView(Tape tape, GridPane tapeGrid, GridPane head, BorderPane tapeArea) {
+        this.tape = tape;
         tapeDisplayOffset = 0;
-        tapeDisplay = tape;
+        tapeDisplay = tapeGrid;
         headDisplay = head;
 
-        Character[] initTapeChars;
-        try {
-            initTapeChars = getTapeAsArray();
-        }
-        catch (NullPointerException e) {
-            initTapeChars = new Character[] {};
-        }
         int initIndex = tapeDisplayOffset;
-        int initSize = initTapeChars.length;
+        int initCount = Math.max(0, ((int)tapeArea.getWidth() - 130) / 31);
+        char[] initTapeChars = tape.window(tapeDisplayOffset, initCount);
         tapeArea.getChildren().remove(tapeDisplay);
         tapeArea.getChildren().remove(headDisplay);
         tapeDisplay = new GridPane();
@@ -128,7 +127,7 @@ public class Tape{
         headDisplay.setAlignment(Pos.CENTER);
 
         // FIXME Add a right click listener to choose the head by right clicking the rectangle desired?
-        for (Integer i = 0; i < ((int)tapeArea.getWidth() - 130) / 31; i++) {
+        for (Integer i = 0; i < initCount; i++) {
             StackPane box = new StackPane();
             StackPane headBox = new StackPane();
             Rectangle tapeBox = new Rectangle(30, 30, Color.TRANSPARENT);
@@ -137,7 +136,7 @@ public class Tape{
             Label tapeChar;
             Label headTapeChar;
 
-            if (initIndex == tapeHead) {
+            if (initIndex == tape.getTapeHead()) {
                 headTapeChar = new Label("↓");
                 headTapeChar.setFont(Font.font(20));
                 //tapeBox.setFill(Paint.valueOf("#CAE1F9"));
@@ -145,27 +144,24 @@ public class Tape{
             else {
                 headTapeChar = new Label(" ");
             }
-            if (initIndex < initSize && initIndex >= 0) {
-                tapeChar = new Label(initTapeChars[initIndex].toString());
+            if (initIndex < tape.getSize() && initIndex >= 0) {
+                tapeChar = new Label(String.valueOf(initTapeChars[initIndex - tapeDisplayOffset]));
                 tapeChar.setFont(Font.font(20));
             }
             else {
                 tapeChar = new Label(" ");
             }
-            if (initIndex == tapeHead) tapeBox.setFill(Paint.valueOf("#CAE1F9"));
+            if (initIndex == tape.getTapeHead()) tapeBox.setFill(Paint.valueOf("#CAE1F9"));
             else tapeBox.setFill(Color.TRANSPARENT);
 
             tapeChar.setId(Integer.toString(i + tapeDisplayOffset));
 
             tapeBox.addEventFilter(MouseEvent.MOUSE_CLICKED, event -> {
-                tapeHead = Integer.parseInt(tapeChar.getId()) + tapeDisplayOffset;
-                refreshTapeDisplay();
+                tape.moveHead(Integer.parseInt(tapeChar.getId()) + tapeDisplayOffset);
             });
 
             tapeChar.addEventFilter(MouseEvent.MOUSE_CLICKED, event -> {
-                tapeHead = Integer.parseInt(tapeChar.getId()) + tapeDisplayOffset;
-
-                refreshTapeDisplay();
+                tape.moveHead(Integer.parseInt(tapeChar.getId()) + tapeDisplayOffset);
             });
 
             headTapeBox.setStroke(Color.TRANSPARENT);
@@ -189,15 +185,9 @@ public class Tape{
                 () -> ((int)(tapeArea.getWidth() - 130)) / 31, tapeArea.widthProperty());
 
         tapeWidth.addListener((obs, oldCount, newCount) -> {
-            Character[] tapeChars;
-            try {
-                tapeChars = getTapeAsArray();
-            }
-            catch (NullPointerException e) {
-                tapeChars = new Character[] {};
-            }
+            char[] tapeChars = tape.window(tapeDisplayOffset, Math.max(0, newCount.intValue()));
             int index = tapeDisplayOffset;
-            int size = tapeChars.length;
+            int size = tape.getSize();
             tapeArea.getChildren().remove(tapeDisplay);
             tapeArea.getChildren().remove(headDisplay);
             tapeDisplay = new GridPane();
@@ -214,7 +204,7 @@ public class Tape{
                 Label headTapeChar;
 
 
-                if (index == tapeHead) {
+                if (index == tape.getTapeHead()) {
                     headTapeChar = new Label("↓");
                     headTapeChar.setFont(Font.font(20));
 
@@ -223,7 +213,7 @@ public class Tape{
                     headTapeChar = new Label(" ");
                 }
                 if (index < size && index >= 0) {
-                    tapeChar = new Label(tapeChars[index].toString());
+                    tapeChar = new Label(String.valueOf(tapeChars[index - tapeDisplayOffset]));
                     tapeChar.setFont(Font.font(20));
 
                 }
@@ -231,21 +221,17 @@ public class Tape{
                     tapeChar = new Label(" ");
 
                 }
-                if (index == tapeHead) tapeBox.setFill(Paint.valueOf("#CAE1F9"));
+                if (index == tape.getTapeHead()) tapeBox.setFill(Paint.valueOf("#CAE1F9"));
                 else tapeBox.setFill(Color.TRANSPARENT);
 
                 tapeChar.setId(Integer.toString(i));
 
                 tapeBox.addEventFilter(MouseEvent.MOUSE_CLICKED, event -> {
-                    tapeHead = Integer.parseInt(tapeChar.getId()) + tapeDisplayOffset;
-
-                    refreshTapeDisplay();
+                    tape.moveHead(Integer.parseInt(tapeChar.getId()) + tapeDisplayOffset);
                 });
 
                 tapeChar.addEventFilter(MouseEvent.MOUSE_CLICKED, event -> {
-                    tapeHead = Integer.parseInt(tapeChar.getId()) + tapeDisplayOffset;
-
-                    refreshTapeDisplay();
+                    tape.moveHead(Integer.parseInt(tapeChar.getId()) + tapeDisplayOffset);
                 });
 
                 headTapeBox.setStroke(Color.TRANSPARENT);
@@ -265,68 +251,46 @@ public class Tape{
         });
     }
 
-
-    public boolean setTapeHead(int tapeHead) {
-        if(tapeHead > this.tape.size()-1 || tapeHead < 0)
-            return false;
-
-        this.tapeHead = tapeHead;
-        return true;
-    }
-
-    public int getTapeHead(){
-        return this.tapeHead;
-    }
-
-    // Initialize Tape to t and set Tapehead to the start
-    public void initTape(ArrayList<Character> t){
-        this.tape.clear();
-        this.tape.addAll(t);
-        this.tapeHead = 0;
-        this.tapeDisplayOffset = 0;
+    public Tape getTape() {
+        return tape;
     }
 
-    public int getSize(){ return tape.size(); }
-
-    public void appendTape(Character c){
-        tape.addLast(c);
+    public void resetDisplayOffset() {
+        tapeDisplayOffset = 0;
     }
 
-    public void prependTape(Character c){
-        tape.addFirst(c);
+    // Tape index of the leftmost cell on screen
+    public int getDisplayOffset() {
+        return tapeDisplayOffset;
     }
 
-    public void setTape(Character c) throws Exception{
-        tape.set(tapeHead, c);
+    public void setDisplayOffset(int offset) {
+        tapeDisplayOffset = offset;
     }
 
-    public Character currentTapeVal(){
-        if(tape.isEmpty())
-            appendTape(' ');
-        return tape.get(tapeHead);
+    // Start redrawing whenever the tape changes
+    public void attach() {
+        tape.setListener(this);
+        refreshTapeDisplay();
     }
 
-    public Character left(){
-        tapeHead--;
-
-        if(tapeHead == -1){
-            prependTape(' ');
-            tapeHead = 0;
-        }
-        return tape.get(tapeHead);
+    // Stop redrawing, also when the tape area is resized, so another view
+    // can take the tape area over
+    public void detach() {
+        if (tape.getListener() == this)
+            tape.setListener(null);
+        tapeWidth.dispose();
     }
 
-    public Character right(){
-        tapeHead++;
-
-        if(tapeHead > tape.size()-1){
-            appendTape(' ');
-            tapeHead = tape.size()-1;
-        }
-        return tape.get(tapeHead);
+    @Override
+    public void tapeChanged(Tape tape) {
+        runOnFxThread(this::refreshTapeDisplay);
     }
 
-    public Character[] getTapeAsArray(){
-        return tape.toArray(new Character[0]);
+    private static void runOnFxThread(Runnable r) {
+        if (Platform.isFxApplicationThread())
+            r.run();
+        else
+            Platform.runLater(r);
     }
 }
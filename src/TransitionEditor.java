@@ -20,6 +20,7 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
@@ -27,12 +28,21 @@ import javafx.scene.text.Text;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.util.ArrayList;
+
 
 public class TransitionEditor {
 
     public Transition createdTransition;
 
     public TransitionEditor(Stage window, State from, State to){
+        this(window, from, to, 1);
+    }
+
+    // On a k-tape machine the columns above are the first tape, and tapes
+    // 2..k get a row each below them. Those start as '~', which reads any
+    // character and writes none, and S.
+    public TransitionEditor(Stage window, State from, State to, int tapes){
         Stage transitionEditor = new Stage();
         transitionEditor.initModality(Modality.APPLICATION_MODAL);
         transitionEditor.initOwner(window);
@@ -116,6 +126,29 @@ public class TransitionEditor {
 
         col3.getChildren().addAll(col3Text, col3VBox);
 
+        //   __  __                 _____
+        //  |  \/  | ___  _ __ ___  |_   _|_ _ _ __   ___  ___
+        //  | |\/| |/ _ \| '__/ _ \   | |/ _` | '_ \ / _ \/ __|
+        //  | |  | | (_) | | |  __/   | | (_| | |_) |  __/\__ \
+        //  |_|  |_|\___/|_|  \___|   |_|\__,_| .__/ \___||___/
+        //                                    |_|
+        GridPane moreTapes = new GridPane();
+        moreTapes.setHgap(5);
+        moreTapes.setVgap(5);
+        moreTapes.setAlignment(Pos.CENTER);
+        TextField[] moreRead = new TextField[tapes - 1];
+        TextField[] moreWrite = new TextField[tapes - 1];
+        ArrayList<ChoiceBox<Transition.Direction>> moreMove = new ArrayList<>();
+        for (int i = 0; i < tapes - 1; i++) {
+            moreRead[i] = cellField();
+            moreWrite[i] = cellField();
+            ChoiceBox<Transition.Direction> move = new ChoiceBox<>();
+            move.getItems().addAll(Transition.Direction.RIGHT, Transition.Direction.LEFT, Transition.Direction.STAY);
+            move.setValue(Transition.Direction.STAY);
+            moreMove.add(move);
+            moreTapes.addRow(i, new Text("Tape " + (i + 2)), moreRead[i], moreWrite[i], move);
+        }
+
         //   ____        _               _ _
         //  / ___| _   _| |__  _ __ ___ (_) |_
         //  \___ \| | | | '_ \| '_ ` _ \| | __|
@@ -128,6 +161,17 @@ public class TransitionEditor {
             createdTransition = new Transition(to, from, col1TextArea.getCharacters().charAt(0),
                     col2TextArea.getCharacters().charAt(0),
                     (Transition.Direction) col3Toggle.getSelectedToggle().getUserData());
+            if (tapes > 1) {
+                char[] read = new char[tapes - 1];
+                char[] write = new char[tapes - 1];
+                Transition.Direction[] move = new Transition.Direction[tapes - 1];
+                for (int i = 0; i < tapes - 1; i++) {
+                    read[i] = moreRead[i].getText().isEmpty() ? '~' : moreRead[i].getText().charAt(0);
+                    write[i] = moreWrite[i].getText().isEmpty() ? '~' : moreWrite[i].getText().charAt(0);
+                    move[i] = moreMove.get(i).getValue();
+                }
+                createdTransition.setMoreTapes(read, write, move);
+            }
 
             transitionEditor.close();
         });
@@ -194,9 +238,16 @@ public class TransitionEditor {
         col2.prefWidthProperty().bind(hBox.widthProperty().divide(3));
         col3.prefWidthProperty().bind(hBox.widthProperty().divide(3));
 
-        borderPane.setCenter(hBox);
+        if (tapes > 1) {
+            Text firstTape = new Text("Tape 1");
+            BorderPane.setAlignment(firstTape, Pos.CENTER);
+            borderPane.setTop(firstTape);
+            borderPane.setCenter(new VBox(5, hBox, moreTapes));
+        } else {
+            borderPane.setCenter(hBox);
+        }
         borderPane.setBottom(submitButton);
-        Scene popUp = new Scene(borderPane, 300,200);
+        Scene popUp = new Scene(borderPane, 300,200 + 35 * (tapes - 1));
         transitionEditor.setScene(popUp);
 
         transitionEditor.setMinWidth(300);
@@ -205,6 +256,21 @@ public class TransitionEditor {
         transitionEditor.showAndWait();
     }
 
+    // A one character field for the read or write of tapes 2..k
+    private TextField cellField(){
+        TextField field = new TextField("~");
+        field.setPrefColumnCount(2);
+        field.setAlignment(Pos.CENTER);
+        field.setTextFormatter(new TextFormatter<>((TextFormatter.Change change) -> {
+            String newText = change.getControlNewText();
+            if(newText.length() > 1 || containsIllegalCharacters(newText))
+                return null;
+            else
+                return change;
+        }));
+        return field;
+    }
+
     private boolean containsIllegalCharacters(String s){
         char s_arr[] = s.trim().toCharArray();
 
@@ -0,0 +1,146 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Runs one machine against many input tapes on all cores.
+// Every input gets its own Tape and Execution, the CompiledMachine is
+// never written to so all workers share it.
+public class BatchRunner {
+    // Inputs handled by one fork/join leaf before it stops splitting
+    private static final int LEAF_SIZE = 16;
+
+    private final CompiledMachine machine;
+    private final RunBudget budget;
+    private final boolean detectLoops;
+    private final ForkJoinPool pool;
+
+    public BatchRunner(CompiledMachine machine, RunBudget budget, boolean detectLoops) {
+        this(machine, budget, detectLoops, ForkJoinPool.commonPool());
+    }
+
+    // The budget applies to each input on its own
+    public BatchRunner(CompiledMachine machine, RunBudget budget, boolean detectLoops, ForkJoinPool pool) {
+        this.machine = machine;
+        this.budget = budget;
+        this.detectLoops = detectLoops;
+        this.pool = pool;
+    }
+
+    // Results come back in the same order as inputs
+    public List<Result> run(List<String> inputs) {
+        if (machine.getStartState() == CompiledMachine.NONE)
+            throw new IllegalStateException("Machine has no start state!");
+
+        Result[] results = new Result[inputs.size()];
+        pool.invoke(new Slice(inputs, results, 0, inputs.size()));
+        return Arrays.asList(results);
+    }
+
+    private Result runOne(String input) {
+        Tape tape = new Tape();
+        tape.initTape(input.toCharArray());
+
+        Execution execution = new Execution(machine, tape, machine.getStartState());
+        execution.setLoopDetection(detectLoops);
+        execution.run(budget);
+
+        return new Result(input, execution.getOutcome(), execution.getVerdict(), execution.isAccepted(),
+                machine.getState(execution.getState()).getName(),
+                execution.getSteps(), tape.toString());
+    }
+
+    private class Slice extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> inputs;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        Slice(List<String> inputs, Result[] results, int from, int to) {
+            this.inputs = inputs;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++)
+                    results[i] = runOne(inputs.get(i));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Slice(inputs, results, from, mid),
+                    new Slice(inputs, results, mid, to));
+        }
+    }
+
+    public static final class Result {
+        private final String input;
+        private final Execution.Outcome outcome;
+        private final String verdict;
+        private final boolean accepted;
+        private final String state;
+        private final long steps;
+        private final String tape;
+
+        Result(String input, Execution.Outcome outcome, String verdict, boolean accepted,
+               String state, long steps, String tape) {
+            this.input = input;
+            this.outcome = outcome;
+            this.verdict = verdict;
+            this.accepted = accepted;
+            this.state = state;
+            this.steps = steps;
+            this.tape = tape;
+        }
+
+        public String getInput() {
+            return input;
+        }
+
+        public Execution.Outcome getOutcome() {
+            return outcome;
+        }
+
+        // accept, reject or the budget that ran out
+        public String getVerdict() {
+            return verdict;
+        }
+
+        // Only true if the machine halted in an accept state
+        public boolean isAccepted() {
+            return accepted && outcome == Execution.Outcome.HALTED;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+
+        public String getTape() {
+            return tape;
+        }
+    }
+}
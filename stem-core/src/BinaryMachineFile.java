@@ -0,0 +1,265 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+// The binary machine format, for machines too big to load quickly from
+// text. Everything is fixed width, so loading is reading the file through
+// one memory mapping with no parsing at all:
+//   header       magic, version, tape count, string count, state count,
+//                transition count, start state (-1 for none)
+//   strings      length and characters of each string (state names and
+//                tape file paths)
+//   states       name string, flags (1 = accept), x, y, red, green,
+//                blue, opacity as doubles
+//   transitions  from state, to state, then read, write and move
+//                ('L', 'R' or 'S') for each tape, two bytes each
+//   tapes        head, tape file path string (-1 for none), length and
+//                cells of each tape. A tape with a tape file has length -1
+//                and no cells here, see TapeFile, unless its cells were
+//                written anyway (version 2 wrote a length of 0 instead).
+// States and transitions are in the machine's order and refer to states
+// by index. Everything the text format holds comes back unchanged.
+public class BinaryMachineFile {
+    static final long MAGIC = 0x5354454D4D434831L;   // "STEMMCH1"
+    static final int VERSION = 3;
+    public static final String EXTENSION = ".stmb";
+
+    private static final int ACCEPT = 1;
+
+    public static boolean isBinary(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return file.length() >= 8 && in.readLong() == MAGIC;
+        }
+    }
+
+    public static void write(File file, Machine m) throws IOException {
+        write(file, m, false);
+    }
+
+    // With tapeFileCells the cells of tapes with a tape file are written here
+    // too and read back from here, for a copy of a machine whose tape files
+    // are not saved with it
+    static void write(File file, Machine m, boolean tapeFileCells) throws IOException {
+        ArrayList<State> states = m.getStates();
+        ArrayList<Transition> transitions = m.getTransitions();
+        int tapes = m.getTapeCount();
+
+        IdentityHashMap<State, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < states.size(); i++)
+            index.put(states.get(i), i);
+        ArrayList<String> strings = new ArrayList<>();
+        HashMap<String, Integer> stringIndex = new HashMap<>();
+        int[] names = new int[states.size()];
+        for (int i = 0; i < names.length; i++) {
+            String name = states.get(i).getName();
+            names[i] = intern(name == null ? "" : name, strings, stringIndex);
+        }
+        int[] tapeFiles = new int[tapes];
+        for (int i = 0; i < tapes; i++)
+            tapeFiles[i] = (m.getTapeFile(i) == null) ? -1 : intern(m.getTapeFile(i), strings, stringIndex);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(tapes);
+            out.writeInt(strings.size());
+            out.writeInt(states.size());
+            out.writeInt(transitions.size());
+            out.writeInt(m.getStartState() == null ? -1 : indexOf(index, m.getStartState()));
+
+            for (String s : strings) {
+                out.writeInt(s.length());
+                out.writeChars(s);
+            }
+            for (int i = 0; i < names.length; i++) {
+                State s = states.get(i);
+                out.writeInt(names[i]);
+                out.writeInt(s.isAccept() ? ACCEPT : 0);
+                out.writeDouble(s.getX());
+                out.writeDouble(s.getY());
+                out.writeDouble(s.getRed());
+                out.writeDouble(s.getGreen());
+                out.writeDouble(s.getBlue());
+                out.writeDouble(s.getOpacity());
+            }
+            for (Transition t : transitions) {
+                out.writeInt(indexOf(index, t.getFromState()));
+                out.writeInt(indexOf(index, t.getToState()));
+                for (int i = 0; i < tapes; i++) {
+                    out.writeChar(t.getReadChar(i));
+                    out.writeChar(t.getWriteChar(i));
+                    out.writeChar(moveCode(t.getMoveDirection(i)));
+                }
+            }
+            for (int i = 0; i < tapes; i++) {
+                out.writeInt(m.getTape(i).getTapeHead());
+                out.writeInt(tapeFiles[i]);
+                if (tapeFiles[i] >= 0 && !tapeFileCells) {
+                    out.writeInt(-1);
+                    continue;
+                }
+                char[] cells = m.getTape(i).toCharArray();
+                out.writeInt(cells.length);
+                for (char c : cells)
+                    out.writeChar(c);
+            }
+        }
+    }
+
+    public static Machine read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large");
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                return read(in, SaveLoad.directory(file));
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException(file + " is cut short or damaged");
+            }
+        }
+    }
+
+    // Tape files are looked for in dir
+    private static Machine read(MappedByteBuffer in, File dir) throws IOException {
+        if (in.getLong() != MAGIC)
+            throw new IOException("Not a binary STEM machine");
+        int version = in.getInt();
+        if (version < 1 || version > VERSION)
+            throw new IOException("Unsupported machine file version " + version);
+        int tapes = in.getInt();
+        int stringCount = in.getInt();
+        int stateCount = in.getInt();
+        int transitionCount = in.getInt();
+        int start = in.getInt();
+        if (tapes < 1 || stringCount < 0 || stateCount < 0 || transitionCount < 0 || start >= stateCount)
+            throw new IOException("Bad machine header");
+
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++)
+            strings[i] = new String(chars(in, in.getInt()));
+
+        Machine m = new Machine();
+        m.setTapeCount(tapes);
+        ArrayList<State> states = new ArrayList<>(stateCount);
+        for (int i = 0; i < stateCount; i++) {
+            State s = new State();
+            s.setName(strings[in.getInt()]);
+            s.setAccept((in.getInt() & ACCEPT) != 0);
+            s.setX(in.getDouble());
+            s.setY(in.getDouble());
+            s.setColor(in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+            states.add(s);
+        }
+        m.setStates(states);
+        if (start >= 0)
+            m.setStartState(states.get(start));
+
+        ArrayList<Transition> transitions = new ArrayList<>(transitionCount);
+        for (int i = 0; i < transitionCount; i++) {
+            State from = states.get(in.getInt());
+            State to = states.get(in.getInt());
+            Transition t = new Transition(to, from, in.getChar(), in.getChar(), move(in.getChar()));
+            if (tapes > 1) {
+                char[] read = new char[tapes - 1];
+                char[] write = new char[tapes - 1];
+                Transition.Direction[] move = new Transition.Direction[tapes - 1];
+                for (int k = 0; k < tapes - 1; k++) {
+                    read[k] = in.getChar();
+                    write[k] = in.getChar();
+                    move[k] = move(in.getChar());
+                }
+                t.setMoreTapes(read, write, move);
+            }
+            from.getTransition().add(t);
+            transitions.add(t);
+        }
+        m.setTransitions(transitions);
+
+        // Version 1 had no tape files
+        for (int i = 0; i < tapes; i++) {
+            int head = in.getInt();
+            int tapeFile = (version >= 2) ? in.getInt() : -1;
+            int length = in.getInt();
+            if (tapeFile >= 0 && (length < 0 || version == 2)) {
+                // Version 2 gave these a length of 0 and no cells
+                TapeFile.load(TapeFile.resolve(dir, strings[tapeFile]), m.getTape(i));
+            } else {
+                m.getTape(i).initTape(chars(in, length));
+            }
+            if (tapeFile >= 0)
+                m.setTapeFile(i, strings[tapeFile]);
+            m.getTape(i).setTapeHead(head);
+        }
+        return m;
+    }
+
+    private static int intern(String s, ArrayList<String> strings, HashMap<String, Integer> index) {
+        Integer at = index.get(s);
+        if (at == null) {
+            at = strings.size();
+            index.put(s, at);
+            strings.add(s);
+        }
+        return at;
+    }
+
+    private static char[] chars(MappedByteBuffer in, int length) throws IOException {
+        if (length < 0 || 2L * length > in.remaining())
+            throw new IOException("Bad length " + length);
+        char[] c = new char[length];
+        in.asCharBuffer().get(c);
+        in.position(in.position() + 2 * length);
+        return c;
+    }
+
+    private static int indexOf(IdentityHashMap<State, Integer> index, State s) throws IOException {
+        Integer i = index.get(s);
+        if (i == null)
+            throw new IOException("Transition uses a state that is not in the machine");
+        return i;
+    }
+
+    private static char moveCode(Transition.Direction d) {
+        switch (d) {
+            case LEFT: return 'L';
+            case RIGHT: return 'R';
+            default: return 'S';
+        }
+    }
+
+    private static Transition.Direction move(char code) throws IOException {
+        switch (code) {
+            case 'L': return Transition.Direction.LEFT;
+            case 'R': return Transition.Direction.RIGHT;
+            case 'S': return Transition.Direction.STAY;
+            default: throw new IOException("Bad Transition");
+        }
+    }
+}
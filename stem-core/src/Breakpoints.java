@@ -0,0 +1,142 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Everything that should pause a run besides a state marked with
+// State.setDebug: taking a transition, reading or writing a symbol,
+// writing a tape cell or reaching a step count.
+//
+// compile() turns these into a Check for one CompiledMachine. Most
+// conditions fold into a flag per transition so checking a step is a few
+// array lookups, and when nothing is set compile() returns null and the
+// run uses the loop that has no breakpoint check at all.
+public class Breakpoints {
+    public static final long NO_STEP = -1;
+
+    private final Set<Transition> transitions = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Character> read = new TreeSet<>();
+    private final Set<Character> written = new TreeSet<>();
+    private final Set<Integer> cells = new TreeSet<>();
+    private long atStep = NO_STEP;
+
+    public Set<Transition> getTransitions() {
+        return transitions;
+    }
+
+    // Symbols that pause the run after a step reads them
+    public Set<Character> getRead() {
+        return read;
+    }
+
+    // Symbols that pause the run after a step writes them
+    public Set<Character> getWritten() {
+        return written;
+    }
+
+    // Tape positions (index less Tape.getOrigin()) that pause the run after
+    // a step writes them
+    public Set<Integer> getCells() {
+        return cells;
+    }
+
+    public long getAtStep() {
+        return atStep;
+    }
+
+    // Pause once this many steps have been taken, NO_STEP for never
+    public void setAtStep(long atStep) {
+        this.atStep = atStep;
+    }
+
+    // Everything except states, which are kept on the State
+    public void clear() {
+        transitions.clear();
+        read.clear();
+        written.clear();
+        cells.clear();
+        atStep = NO_STEP;
+    }
+
+    public boolean isEmpty() {
+        return transitions.isEmpty() && read.isEmpty() && written.isEmpty() && cells.isEmpty() && atStep == NO_STEP;
+    }
+
+    // The check for runs of machine, or null if nothing can ever pause
+    // them. States marked as breakpoints are read now, so compile again
+    // after changing them.
+    public Check compile(CompiledMachine machine) {
+        boolean any = !isEmpty();
+        for (int s = 0; s < machine.getStateCount() && !any; s++)
+            any = machine.getState(s).isDebug();
+        return any ? new Check(this, machine) : null;
+    }
+
+    // Breakpoints compiled for one machine. Immutable.
+    public static final class Check {
+        private final CompiledMachine machine;
+        private final boolean[] onTransition;
+        private final boolean[] onRead;
+        private final int[] cells;
+        private final long atStep;
+
+        private Check(Breakpoints b, CompiledMachine machine) {
+            this.machine = machine;
+            onTransition = new boolean[machine.getTransitionCount()];
+            for (int t = 0; t < onTransition.length; t++) {
+                Transition tr = machine.getTransition(t);
+                int write = machine.writeChar(t);
+                onTransition[t] = b.transitions.contains(tr)
+                        || machine.getState(machine.nextState(t)).isDebug()
+                        || (write != CompiledMachine.NONE && b.written.contains((char) write));
+            }
+
+            // Catchall transitions read all sorts, so reads are checked per step
+            int maxRead = -1;
+            for (char c : b.read)
+                maxRead = Math.max(maxRead, c);
+            onRead = new boolean[maxRead + 1];
+            for (char c : b.read)
+                onRead[c] = true;
+
+            cells = new int[b.cells.size()];
+            int i = 0;
+            for (int cell : b.cells)
+                cells[i++] = cell;
+            atStep = b.atStep;
+        }
+
+        // True if a step that took transition t, read read at position and
+        // brought the run to steps should pause it
+        public boolean hit(int t, char read, int position, long steps) {
+            return onTransition[t]
+                    || (read < onRead.length && onRead[read])
+                    || steps == atStep
+                    || (cells.length != 0 && machine.writeChar(t) != CompiledMachine.NONE
+                        && Arrays.binarySearch(cells, position) >= 0);
+        }
+
+        // Whether sweeping over a run of t could step past a breakpoint
+        boolean stopsSweep(int t) {
+            int c = machine.sweepChar(t);
+            return onTransition[t] || cells.length != 0 || atStep != NO_STEP
+                    || (c < onRead.length && onRead[c]);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+// Immutable transition table built from a Machine.
+// States and tape symbols are given dense ids so finding the next transition
+// is a single array lookup instead of a scan over State.getTransition().
+// The '~' catchall is resolved when the table is built.
+public final class CompiledMachine {
+    public static final int NONE = -1;
+
+    // Symbol 0 stands for every character no transition reads explicitly
+    private static final int OTHER = 0;
+
+    private final State[] states;
+    private final Transition[] transitions;
+    private final IdentityHashMap<State, Integer> stateIds;
+    private final IdentityHashMap<Transition, Integer> transitionIds;
+
+    private final boolean[] accept;
+    private final int startState;
+
+    private final int[] symbolOf;
+    private final int symbolCount;
+    private final int[] table;
+
+    // Every transition that applies, for nondeterministic machines. The
+    // catchalls only apply to characters with no explicit transition.
+    private final int[][] choices;
+    private final boolean deterministic;
+
+    private final int[] nextState;
+    private final int[] writeChar;
+    private final int[] move;
+    private final int[] sweepChar;
+
+    private CompiledMachine(Machine m) {
+        stateIds = new IdentityHashMap<>();
+        ArrayList<State> stateList = new ArrayList<>();
+        for (State s : m.getStates())
+            addState(s, stateList);
+
+        // Collect every transition reachable from a state, in the order
+        // the old linear scan would have visited them
+        transitionIds = new IdentityHashMap<>();
+        ArrayList<Transition> transitionList = new ArrayList<>();
+        for (int i = 0; i < stateList.size(); i++) {
+            for (Transition t : stateList.get(i).getTransition()) {
+                if (t.getToState() != null)
+                    addState(t.getToState(), stateList);
+                if (!transitionIds.containsKey(t)) {
+                    transitionIds.put(t, transitionList.size());
+                    transitionList.add(t);
+                }
+            }
+        }
+        if (m.getStartState() != null)
+            addState(m.getStartState(), stateList);
+
+        states = stateList.toArray(new State[0]);
+        transitions = transitionList.toArray(new Transition[0]);
+        startState = m.getStartState() == null ? NONE : stateIds.get(m.getStartState());
+
+        accept = new boolean[states.length];
+        for (int i = 0; i < states.length; i++)
+            accept[i] = states[i].isAccept();
+
+        // Every character read by some transition gets its own symbol id
+        int maxChar = ' ';
+        for (Transition t : transitions)
+            maxChar = Math.max(maxChar, t.getReadChar());
+        symbolOf = new int[maxChar + 1];
+        int symbols = 1;
+        for (Transition t : transitions) {
+            if (symbolOf[t.getReadChar()] == OTHER)
+                symbolOf[t.getReadChar()] = symbols++;
+        }
+        symbolCount = symbols;
+
+        nextState = new int[transitions.length];
+        writeChar = new int[transitions.length];
+        move = new int[transitions.length];
+        sweepChar = new int[transitions.length];
+        for (int i = 0; i < transitions.length; i++) {
+            Transition t = transitions[i];
+            nextState[i] = stateIds.get(t.getToState());
+            writeChar[i] = (t.getWriteChar() == '~') ? NONE : t.getWriteChar();
+            switch (t.getMoveDirection()) {
+                case LEFT:
+                    move[i] = -1;
+                    break;
+                case RIGHT:
+                    move[i] = 1;
+                    break;
+                default:
+                    move[i] = 0;
+                    break;
+            }
+
+            // A state that reads c, moves and stays in the same state keeps
+            // doing so for as long as it sees c
+            boolean selfLoop = t.getFromState() == t.getToState() && move[i] != 0;
+            sweepChar[i] = (selfLoop && t.getReadChar() != '~') ? t.getReadChar() : NONE;
+        }
+
+        table = new int[states.length * symbolCount];
+        choices = new int[states.length * symbolCount][];
+        boolean single = true;
+        for (int s = 0; s < states.length; s++) {
+            int row = s * symbolCount;
+            table[row + OTHER] = indexOf(scan(states[s], '~', true));
+            choices[row + OTHER] = scanAll(states[s], '~');
+            for (char c = 0; c < symbolOf.length; c++) {
+                if (symbolOf[c] != OTHER) {
+                    table[row + symbolOf[c]] = indexOf(scan(states[s], c, false));
+                    int[] all = scanAll(states[s], c);
+                    choices[row + symbolOf[c]] = (all.length > 0) ? all : choices[row + OTHER];
+                }
+            }
+            for (int i = row; i < row + symbolCount; i++)
+                single &= choices[i].length <= 1;
+        }
+        deterministic = single;
+    }
+
+    public static CompiledMachine compile(Machine m) {
+        return new CompiledMachine(m);
+    }
+
+    private void addState(State s, ArrayList<State> stateList) {
+        if (!stateIds.containsKey(s)) {
+            stateIds.put(s, stateList.size());
+            stateList.add(s);
+        }
+    }
+
+    private int indexOf(Transition t) {
+        return (t == null) ? NONE : transitionIds.get(t);
+    }
+
+    // The lookup Tester.nextTransition used to do on every step: the first
+    // transition reading c, otherwise the first catchall.
+    static Transition scan(State state, char c, boolean catchallOnly) {
+        if (!catchallOnly) {
+            for (Transition t : state.getTransition()) {
+                if (t.getReadChar() == c && t.getFromState() == state)
+                    return t;
+            }
+        }
+        for (Transition t : state.getTransition()) {
+            if (t.getFromState() == state && t.getReadChar() == '~')
+                return t;
+        }
+        return null;
+    }
+
+    // Ids of every transition of state reading c, in order
+    private int[] scanAll(State state, char c) {
+        ArrayList<Integer> found = new ArrayList<>();
+        for (Transition t : state.getTransition()) {
+            if (t.getReadChar() == c && t.getFromState() == state)
+                found.add(transitionIds.get(t));
+        }
+        int[] ids = new int[found.size()];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = found.get(i);
+        return ids;
+    }
+
+    public int symbol(char c) {
+        return (c < symbolOf.length) ? symbolOf[c] : OTHER;
+    }
+
+    // Transition id to take from state on reading c, or NONE if the machine halts
+    public int transitionFor(int state, char c) {
+        return table[state * symbolCount + symbol(c)];
+    }
+
+    // Every transition that could be taken from state on reading c, the
+    // first of which is transitionFor. Must not be modified.
+    public int[] transitionsFor(int state, char c) {
+        return choices[state * symbolCount + symbol(c)];
+    }
+
+    // False if some state has more than one transition for a character
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    public int getStateCount() {
+        return states.length;
+    }
+
+    public int getTransitionCount() {
+        return transitions.length;
+    }
+
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    public int getStartState() {
+        return startState;
+    }
+
+    public int stateId(State s) {
+        Integer id = stateIds.get(s);
+        return (id == null) ? NONE : id;
+    }
+
+    public int transitionId(Transition t) {
+        Integer id = transitionIds.get(t);
+        return (id == null) ? NONE : id;
+    }
+
+    public State getState(int id) {
+        return states[id];
+    }
+
+    public Transition getTransition(int id) {
+        return transitions[id];
+    }
+
+    public boolean isAccept(int state) {
+        return accept[state];
+    }
+
+    public int nextState(int transition) {
+        return nextState[transition];
+    }
+
+    // Character written by transition, or NONE if it leaves the cell alone
+    public int writeChar(int transition) {
+        return writeChar[transition];
+    }
+
+    // -1 for left, 1 for right and 0 for stay
+    public int move(int transition) {
+        return move[transition];
+    }
+
+    // Character a self-looping transition keeps reading, so the run can
+    // jump over every following cell holding it. NONE for other transitions.
+    public int sweepChar(int transition) {
+        return sweepChar[transition];
+    }
+}
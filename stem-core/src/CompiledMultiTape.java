@@ -0,0 +1,197 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.ArrayList;
+
+// Transition table for a k-tape machine. Each tape gets its own dense
+// symbol ids and the ids under the k heads are combined into one mixed
+// radix index, so the next transition for a whole tuple of symbols is a
+// single array lookup like CompiledMachine.transitionFor.
+//
+// States and transitions keep the ids CompiledMachine gives them.
+public final class CompiledMultiTape {
+    public static final int NONE = CompiledMachine.NONE;
+
+    // Symbol 0 on each tape stands for every character no transition reads there
+    private static final int OTHER = 0;
+
+    // Largest table built, in entries, before giving up on the machine
+    static final int MAX_TABLE = 1 << 24;
+
+    private final CompiledMachine base;
+    private final int tapeCount;
+
+    private final int[][] symbolOf;
+    private final int[] symbolCount;
+    private final int[] stride;
+    private final int combinations;
+    private final int[] table;
+
+    // Indexed by transition * tapeCount + tape
+    private final int[] writeChar;
+    private final int[] move;
+
+    private CompiledMultiTape(Machine m) {
+        base = CompiledMachine.compile(m);
+        tapeCount = m.getTapeCount();
+        int transitions = base.getTransitionCount();
+
+        // Every character read on a tape by some transition gets its own
+        // symbol id on that tape
+        symbolOf = new int[tapeCount][];
+        symbolCount = new int[tapeCount];
+        stride = new int[tapeCount];
+        long combos = 1;
+        long states = Math.max(1, base.getStateCount());
+        for (int tape = 0; tape < tapeCount; tape++) {
+            int maxChar = ' ';
+            for (int t = 0; t < transitions; t++)
+                maxChar = Math.max(maxChar, base.getTransition(t).getReadChar(tape));
+            symbolOf[tape] = new int[maxChar + 1];
+            int symbols = 1;
+            for (int t = 0; t < transitions; t++) {
+                char c = base.getTransition(t).getReadChar(tape);
+                if (c != '~' && symbolOf[tape][c] == OTHER)
+                    symbolOf[tape][c] = symbols++;
+            }
+            symbolCount[tape] = symbols;
+            stride[tape] = (int) combos;
+            combos *= symbols;
+            if (combos * states > MAX_TABLE)
+                throw new IllegalArgumentException(String.format(
+                        "Too many combinations of symbols across %d tapes to build a table", tapeCount));
+        }
+        combinations = (int) combos;
+
+        writeChar = new int[transitions * tapeCount];
+        move = new int[transitions * tapeCount];
+        for (int t = 0; t < transitions; t++) {
+            Transition tr = base.getTransition(t);
+            for (int tape = 0; tape < tapeCount; tape++) {
+                int i = t * tapeCount + tape;
+                writeChar[i] = (tr.getWriteChar(tape) == '~') ? NONE : tr.getWriteChar(tape);
+                switch (tr.getMoveDirection(tape)) {
+                    case LEFT:
+                        move[i] = -1;
+                        break;
+                    case RIGHT:
+                        move[i] = 1;
+                        break;
+                    default:
+                        move[i] = 0;
+                        break;
+                }
+            }
+        }
+
+        table = new int[base.getStateCount() * combinations];
+        int[] tuple = new int[tapeCount];
+        for (int s = 0; s < base.getStateCount(); s++) {
+            State state = base.getState(s);
+            for (int c = 0; c < combinations; c++) {
+                for (int tape = 0; tape < tapeCount; tape++)
+                    tuple[tape] = (c / stride[tape]) % symbolCount[tape];
+                Transition best = scan(state, tuple);
+                table[s * combinations + c] = (best == null) ? NONE : base.transitionId(best);
+            }
+        }
+    }
+
+    public static CompiledMultiTape compile(Machine m) {
+        return new CompiledMultiTape(m);
+    }
+
+    // The transition of state matching the symbol tuple that reads '~' on
+    // the fewest tapes, the first such one on a tie. With one tape this is
+    // the order CompiledMachine.scan picks in.
+    private Transition scan(State state, int[] tuple) {
+        Transition best = null;
+        int bestExact = -1;
+        for (Transition t : state.getTransition()) {
+            if (t.getFromState() != state)
+                continue;
+            int exact = 0;
+            boolean matches = true;
+            for (int tape = 0; tape < tapeCount && matches; tape++) {
+                char c = t.getReadChar(tape);
+                if (c == '~')
+                    continue;
+                matches = symbol(tape, c) == tuple[tape] && tuple[tape] != OTHER;
+                exact++;
+            }
+            if (matches && exact > bestExact) {
+                best = t;
+                bestExact = exact;
+            }
+        }
+        return best;
+    }
+
+    public int symbol(int tape, char c) {
+        int[] of = symbolOf[tape];
+        return (c < of.length) ? of[c] : OTHER;
+    }
+
+    // Transition id to take from state with the heads of tapes over the
+    // given cells, or NONE if the machine halts
+    public int transitionFor(int state, Tape[] tapes) {
+        int index = state * combinations;
+        for (int tape = 0; tape < tapes.length; tape++)
+            index += symbol(tape, tapes[tape].currentTapeVal()) * stride[tape];
+        return table[index];
+    }
+
+    public CompiledMachine getBase() {
+        return base;
+    }
+
+    public int getTapeCount() {
+        return tapeCount;
+    }
+
+    public int getStartState() {
+        return base.getStartState();
+    }
+
+    public int stateId(State s) {
+        return base.stateId(s);
+    }
+
+    public State getState(int id) {
+        return base.getState(id);
+    }
+
+    public Transition getTransition(int id) {
+        return base.getTransition(id);
+    }
+
+    public boolean isAccept(int state) {
+        return base.isAccept(state);
+    }
+
+    public int nextState(int transition) {
+        return base.nextState(transition);
+    }
+
+    // Character transition writes on tape, or NONE if it leaves the cell alone
+    public int writeChar(int transition, int tape) {
+        return writeChar[transition * tapeCount + tape];
+    }
+
+    // -1 for left, 1 for right and 0 for stay on tape
+    public int move(int transition, int tape) {
+        return move[transition * tapeCount + tape];
+    }
+}
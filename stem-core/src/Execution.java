@@ -0,0 +1,422 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+// A single run of a CompiledMachine over a Tape.
+// The CompiledMachine is shared and never changes, everything that moves
+// during a run (current state, step count) lives here.
+public class Execution {
+    private final CompiledMachine machine;
+    private final Tape tape;
+    private int state;
+    private int lastTransition = CompiledMachine.NONE;
+    private long steps;
+    private Outcome outcome;
+    private LoopDetector detector;
+    private StepRecorder trace;
+    private Breakpoints.Check breakpoints;
+    private Heatmap heatmap;
+
+    // Steps between checks of the time and tape budgets
+    static final int CHECK_INTERVAL = 1 << 14;
+
+    private static final RunBudget UNLIMITED =
+            new RunBudget(RunBudget.UNLIMITED, RunBudget.UNLIMITED, RunBudget.UNLIMITED);
+
+    public Execution(CompiledMachine machine, Tape tape, int startState) {
+        this.machine = machine;
+        this.tape = tape;
+        this.state = startState;
+    }
+
+    public CompiledMachine getMachine() {
+        return machine;
+    }
+
+    public Tape getTape() {
+        return tape;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    // Id of the transition taken by the last step, NONE before the first step
+    public int getLastTransition() {
+        return lastTransition;
+    }
+
+    public boolean isAccepted() {
+        return machine.isAccept(state);
+    }
+
+    // Transition the next step would take, or NONE if the machine has halted
+    public int peek() {
+        return machine.transitionFor(state, tape.currentTapeVal());
+    }
+
+    // Watch for repeated configurations from now on. A run that repeats
+    // one stops with LOOPS_FOREVER.
+    public void setLoopDetection(boolean on) {
+        detector = on ? new LoopDetector(tape) : null;
+    }
+
+    public LoopDetector getLoopDetector() {
+        return detector;
+    }
+
+    // Record every step taken from now on, null to stop recording
+    public void setTrace(StepRecorder trace) {
+        this.trace = trace;
+    }
+
+    public StepRecorder getTrace() {
+        return trace;
+    }
+
+    // Pause with BREAKPOINT after any step the check picks out, null for
+    // none. Runs without breakpoints never look at them.
+    public void setBreakpoints(Breakpoints.Check breakpoints) {
+        this.breakpoints = breakpoints;
+    }
+
+    // Count every transition taken from now on, null to stop counting.
+    // Costs one array increment per step.
+    public void setHeatmap(Heatmap heatmap) {
+        this.heatmap = heatmap;
+    }
+
+    public Heatmap getHeatmap() {
+        return heatmap;
+    }
+
+    // Put the run back to an earlier point, for StepHistory. The tape is
+    // restored separately.
+    public void restore(int state, long steps) {
+        this.state = state;
+        this.steps = steps;
+        this.lastTransition = CompiledMachine.NONE;
+        this.outcome = null;
+    }
+
+    // Take one step. Returns the transition id taken or NONE if halted.
+    public int step() {
+        if (outcome == Outcome.BREAKPOINT)
+            outcome = null;
+        char read = tape.currentTapeVal();
+        int t = machine.transitionFor(state, read);
+        if (t == CompiledMachine.NONE)
+            return t;
+        int position = tape.getTapeHead() - tape.getOrigin();
+        if (trace != null)
+            trace.record(steps, state, t, read, position, 1);
+        if (heatmap != null)
+            heatmap.hits[t]++;
+
+        int write = machine.writeChar(t);
+        if (write != CompiledMachine.NONE) {
+            tape.setTape((char) write);
+            if (detector != null)
+                detector.written(tape.getTapeHead() - tape.getOrigin(), read, (char) write);
+        }
+
+        int move = machine.move(t);
+        if (move < 0)
+            tape.left();
+        else if (move > 0)
+            tape.right();
+
+        state = machine.nextState(t);
+        lastTransition = t;
+        steps++;
+
+        if (breakpoints != null && breakpoints.hit(t, read, position, steps))
+            outcome = Outcome.BREAKPOINT;
+        if (detector != null && detector.check(state, tape, steps))
+            outcome = Outcome.LOOPS_FOREVER;
+        return t;
+    }
+
+    // Run until no transition applies. Returns the halting state id.
+    public int run() {
+        run(UNLIMITED);
+        return state;
+    }
+
+    // Run until the machine halts or goes over budget.
+    // The step loop counts down to the next budget check instead of testing
+    // every limit on every step, so tape length and time are only looked at
+    // every CHECK_INTERVAL steps and may overshoot by that much.
+    // Self-loops that move over a run of one symbol are swept with
+    // Tape.sweep instead of being stepped cell by cell.
+    public Outcome run(RunBudget budget) {
+        if (detector != null)
+            return runChecked(budget);
+        if (breakpoints != null)
+            return runToBreakpoint(budget);
+
+        final CompiledMachine m = machine;
+        final Tape tape = this.tape;
+        final StepRecorder trace = this.trace;
+        final long[] heat = (heatmap == null) ? null : heatmap.hits;
+        final long startTime = System.nanoTime();
+        int state = this.state;
+        int last = lastTransition;
+
+        try {
+            while (true) {
+                long allowed = budget.getMaxSteps() - steps;
+                if (allowed <= 0) {
+                    outcome = (peek() == CompiledMachine.NONE) ? Outcome.HALTED : Outcome.STEP_LIMIT;
+                    return outcome;
+                }
+
+                int countdown = (int) Math.min(CHECK_INTERVAL, allowed);
+                int chunk = countdown;
+                int t = CompiledMachine.NONE;
+                char read;
+                while (countdown != 0
+                        && (t = m.transitionFor(state, read = tape.currentTapeVal())) != CompiledMachine.NONE) {
+                    int write = m.writeChar(t);
+                    int position = (trace != null) ? tape.getTapeHead() - tape.getOrigin() : 0;
+
+                    // A self-loop over a run of the same symbol is taken in one go
+                    int sweep = m.sweepChar(t);
+                    if (sweep != CompiledMachine.NONE) {
+                        int n = tape.sweep((char) sweep, write, m.move(t), countdown);
+                        if (trace != null)
+                            trace.record(steps + chunk - countdown, state, t, read, position, n);
+                        if (heat != null)
+                            heat[t] += n;
+                        countdown -= n;
+                        last = t;
+                        continue;
+                    }
+                    if (trace != null)
+                        trace.record(steps + chunk - countdown, state, t, read, position, 1);
+                    if (heat != null)
+                        heat[t]++;
+
+                    if (write != CompiledMachine.NONE)
+                        tape.setTape((char) write);
+
+                    int move = m.move(t);
+                    if (move < 0)
+                        tape.left();
+                    else if (move > 0)
+                        tape.right();
+
+                    state = m.nextState(t);
+                    last = t;
+                    countdown--;
+                }
+                steps += chunk - countdown;
+                this.state = state;
+
+                if (countdown != 0) {
+                    outcome = Outcome.HALTED;
+                    return outcome;
+                }
+                if (overBudget(budget, startTime))
+                    return outcome;
+            }
+        } finally {
+            this.state = state;
+            this.lastTransition = last;
+        }
+    }
+
+    // The fast loop with a breakpoint check after every step. Kept apart
+    // from run() so runs without breakpoints do not pay for the check.
+    private Outcome runToBreakpoint(RunBudget budget) {
+        final CompiledMachine m = machine;
+        final Tape tape = this.tape;
+        final Breakpoints.Check bp = breakpoints;
+        final StepRecorder trace = this.trace;
+        final long[] heat = (heatmap == null) ? null : heatmap.hits;
+        final long startTime = System.nanoTime();
+        int state = this.state;
+        int last = lastTransition;
+        outcome = null;
+
+        try {
+            while (true) {
+                long allowed = budget.getMaxSteps() - steps;
+                if (allowed <= 0) {
+                    outcome = (peek() == CompiledMachine.NONE) ? Outcome.HALTED : Outcome.STEP_LIMIT;
+                    return outcome;
+                }
+
+                int countdown = (int) Math.min(CHECK_INTERVAL, allowed);
+                int chunk = countdown;
+                int t = CompiledMachine.NONE;
+                char read;
+                boolean hit = false;
+                while (countdown != 0
+                        && (t = m.transitionFor(state, read = tape.currentTapeVal())) != CompiledMachine.NONE) {
+                    int write = m.writeChar(t);
+                    int position = tape.getTapeHead() - tape.getOrigin();
+
+                    int sweep = m.sweepChar(t);
+                    if (sweep != CompiledMachine.NONE && !bp.stopsSweep(t)) {
+                        int n = tape.sweep((char) sweep, write, m.move(t), countdown);
+                        if (trace != null)
+                            trace.record(steps + chunk - countdown, state, t, read, position, n);
+                        if (heat != null)
+                            heat[t] += n;
+                        countdown -= n;
+                        last = t;
+                        continue;
+                    }
+                    if (trace != null)
+                        trace.record(steps + chunk - countdown, state, t, read, position, 1);
+                    if (heat != null)
+                        heat[t]++;
+
+                    if (write != CompiledMachine.NONE)
+                        tape.setTape((char) write);
+                    int move = m.move(t);
+                    if (move < 0)
+                        tape.left();
+                    else if (move > 0)
+                        tape.right();
+
+                    state = m.nextState(t);
+                    last = t;
+                    countdown--;
+                    if (bp.hit(t, read, position, steps + chunk - countdown)) {
+                        hit = true;
+                        break;
+                    }
+                }
+                steps += chunk - countdown;
+                this.state = state;
+
+                if (hit) {
+                    outcome = Outcome.BREAKPOINT;
+                    return outcome;
+                }
+                if (countdown != 0) {
+                    outcome = Outcome.HALTED;
+                    return outcome;
+                }
+                if (overBudget(budget, startTime))
+                    return outcome;
+            }
+        } finally {
+            this.state = state;
+            this.lastTransition = last;
+        }
+    }
+
+    // Same as run(budget) but going through step() so the loop detector
+    // sees every step
+    private Outcome runChecked(RunBudget budget) {
+        final long startTime = System.nanoTime();
+        outcome = null;
+        while (true) {
+            long allowed = budget.getMaxSteps() - steps;
+            if (allowed <= 0) {
+                outcome = (peek() == CompiledMachine.NONE) ? Outcome.HALTED : Outcome.STEP_LIMIT;
+                return outcome;
+            }
+
+            int countdown = (int) Math.min(CHECK_INTERVAL, allowed);
+            while (countdown != 0) {
+                if (step() == CompiledMachine.NONE) {
+                    outcome = Outcome.HALTED;
+                    return outcome;
+                }
+                if (outcome == Outcome.LOOPS_FOREVER || outcome == Outcome.BREAKPOINT)
+                    return outcome;
+                countdown--;
+            }
+            if (overBudget(budget, startTime))
+                return outcome;
+        }
+    }
+
+    // Check the step, tape and time budgets of a run started at startTime
+    // (System.nanoTime()), setting the outcome if either is used up.
+    // Used between chunks of run() and after every step of a paced run.
+    public boolean overBudget(RunBudget budget, long startTime) {
+        if (steps >= budget.getMaxSteps() && peek() != CompiledMachine.NONE)
+            outcome = Outcome.STEP_LIMIT;
+        else if (tape.getSize() > budget.getMaxTapeLength())
+            outcome = Outcome.TAPE_LIMIT;
+        else if (System.nanoTime() - startTime > budget.maxNanos())
+            outcome = Outcome.TIME_LIMIT;
+        else
+            return false;
+        return true;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    // Short description of why a run stopped, for fail reasons and reports
+    public String describeOutcome(RunBudget budget) {
+        if (outcome == null)
+            return "Still running";
+        switch (outcome) {
+            case STEP_LIMIT:
+                return String.format("Step limit of %d exceeded", budget.getMaxSteps());
+            case TIME_LIMIT:
+                return String.format("Time limit of %d ms exceeded after %d steps", budget.getMaxMillis(), steps);
+            case TAPE_LIMIT:
+                return String.format("Tape grew past %d cells after %d steps", budget.getMaxTapeLength(), steps);
+            case LOOPS_FOREVER:
+                return String.format("Machine loops forever: the configuration at step %d repeats every %d steps",
+                        detector.getLoopStart(), detector.getPeriod());
+            case BREAKPOINT:
+                return String.format("Breakpoint after step %d", steps);
+            default:
+                return isAccepted() ? "Accepted" : "Rejected";
+        }
+    }
+
+    // One word answer for reports: accept, reject or the budget that ran out
+    public String getVerdict() {
+        if (outcome == null || outcome == Outcome.HALTED)
+            return isAccepted() ? "accept" : "reject";
+        return outcome.label;
+    }
+
+    public enum Outcome {
+        HALTED("halted"),
+        STEP_LIMIT("step-limit"),
+        TIME_LIMIT("time-limit"),
+        TAPE_LIMIT("tape-limit"),
+        LOOPS_FOREVER("loops-forever"),
+        BREAKPOINT("breakpoint"),
+        // Only from NondeterministicSearch
+        FRONTIER_LIMIT("frontier-limit"),
+        MEMORY_LIMIT("memory-limit");
+
+        private final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+// Command line entry point that runs a saved machine without the editor.
+// Never touches the JavaFX toolkit and never sleeps between steps.
+//
+// Usage: java -cp STEM.jar HeadlessRunner <machine file> [tape ...]
+//        java -cp STEM.jar HeadlessRunner --batch <inputs file> <machine file>
+public class HeadlessRunner {
+    private static final int ACCEPT = 0;
+    private static final int REJECT = 1;
+    private static final int ERROR = 2;
+    private static final int OVER_BUDGET = 3;
+
+    private static final String USAGE =
+            "Usage: HeadlessRunner [options] <machine file> [tape ...]\n" +
+            "       HeadlessRunner [options] --batch <inputs file> <machine file>\n" +
+            "Options:\n" +
+            "  --max-steps <n>   stop after n steps\n" +
+            "  --max-time <ms>   stop after ms milliseconds of run time\n" +
+            "  --max-tape <n>    stop once the tape is longer than n cells\n" +
+            "  --detect-loops    stop when a configuration repeats (slower per step)\n" +
+            "  --macro <k>       simulate k cells at a time, for machines that run a long time\n" +
+            "  --explore         run every branch of a nondeterministic machine, printing the accepting one\n" +
+            "  --max-branches <n>\n" +
+            "                    stop exploring once a step has more than n configurations\n" +
+            "  --max-memory <mb> stop exploring once configurations take about mb megabytes\n" +
+            "  --record <file>   write every step of the run to a trace file\n" +
+            "  --heatmap         count how often each state and transition is used and print the counts\n" +
+            "  --tape-file <file>\n" +
+            "                    start the (first) tape with the cells of a tape file, one character a cell\n" +
+            "  --show-step <n> <trace file>\n" +
+            "                    print step n (from 1) of a recorded run of the machine instead of running it\n" +
+            "A k-tape machine takes up to k tapes, one per argument. It can only be run plainly,\n" +
+            "with the step, time and tape limits.";
+
+    public static void main(String[] args) {
+        String batchFile = null;
+        boolean detectLoops = false;
+        boolean explore = false;
+        boolean heat = false;
+        int blockSize = 0;
+        String recordFile = null;
+        String traceFile = null;
+        String tapeFile = null;
+        long showStep = -1;
+        RunBudget budget = new RunBudget();
+        ArrayList<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch") && i + 1 < args.length)
+                batchFile = args[++i];
+            else if (args[i].equals("--max-steps") && i + 1 < args.length)
+                budget.setMaxSteps(parseLimit(args[++i]));
+            else if (args[i].equals("--max-time") && i + 1 < args.length)
+                budget.setMaxMillis(parseLimit(args[++i]));
+            else if (args[i].equals("--max-tape") && i + 1 < args.length)
+                budget.setMaxTapeLength(parseLimit(args[++i]));
+            else if (args[i].equals("--detect-loops"))
+                detectLoops = true;
+            else if (args[i].equals("--explore"))
+                explore = true;
+            else if (args[i].equals("--max-branches") && i + 1 < args.length)
+                budget.setMaxFrontier(parseLimit(args[++i]));
+            else if (args[i].equals("--max-memory") && i + 1 < args.length)
+                budget.setMaxMemory(Math.min(parseLimit(args[++i]), RunBudget.UNLIMITED >> 20) << 20);
+            else if (args[i].equals("--heatmap"))
+                heat = true;
+            else if (args[i].equals("--tape-file") && i + 1 < args.length)
+                tapeFile = args[++i];
+            else if (args[i].equals("--record") && i + 1 < args.length)
+                recordFile = args[++i];
+            else if (args[i].equals("--show-step") && i + 2 < args.length) {
+                showStep = parseStep(args[++i]);
+                traceFile = args[++i];
+            }
+            else if (args[i].equals("--macro") && i + 1 < args.length)
+                blockSize = (int) Math.min(parseLimit(args[++i]), 64);
+            else if (args[i].startsWith("--"))
+                usage();
+            else
+                positional.add(args[i]);
+        }
+        if (positional.isEmpty() || (batchFile != null && positional.size() != 1))
+            usage();
+
+        String machineFile = positional.get(0);
+        Machine m;
+        try {
+            m = new SaveLoad().loadFile(new File(machineFile));
+        } catch (IOException e) {
+            System.err.printf("Could not load %s: %s\n", machineFile, e.getMessage());
+            System.exit(ERROR);
+            return;
+        }
+        if (m == null) {
+            System.err.printf("%s is not a STEM or xTuringMachine file\n", machineFile);
+            System.exit(ERROR);
+            return;
+        }
+        if (m.getStartState() == null) {
+            System.err.println("Machine has no start state!");
+            System.exit(ERROR);
+            return;
+        }
+
+        if (tapeFile != null) {
+            if (positional.size() > 1 || batchFile != null) {
+                System.err.println("--tape-file takes the place of a tape argument and --batch");
+                System.exit(ERROR);
+                return;
+            }
+            try {
+                TapeFile.load(new File(tapeFile), m.getTape());
+            } catch (IOException e) {
+                System.err.printf("Could not load %s: %s\n", tapeFile, e.getMessage());
+                System.exit(ERROR);
+                return;
+            }
+        }
+
+        if (positional.size() - 1 > m.getTapeCount()) {
+            System.err.printf("Machine has %d tape(s), given %d\n", m.getTapeCount(), positional.size() - 1);
+            System.exit(ERROR);
+            return;
+        }
+        if (m.getTapeCount() > 1) {
+            if (traceFile != null || batchFile != null || detectLoops || blockSize > 0 || recordFile != null || heat || explore) {
+                System.err.println("Multi-tape machines can only be run with the step, time and tape limits");
+                System.exit(ERROR);
+                return;
+            }
+            for (int i = 1; i < positional.size(); i++)
+                m.getTape(i - 1).initTape(positional.get(i).toCharArray());
+            runMultiTape(m, budget);
+            return;
+        }
+
+        if (heat && (traceFile != null || batchFile != null || blockSize > 0 || explore)) {
+            System.err.println("--heatmap only counts a plain run of one tape");
+            System.exit(ERROR);
+            return;
+        }
+        if (traceFile != null) {
+            showStep(m, traceFile, showStep);
+            return;
+        }
+        if (batchFile != null) {
+            runBatch(m, batchFile, budget, detectLoops);
+            return;
+        }
+
+        // Replace the saved tape if one was given on the command line
+        if (positional.size() == 2)
+            m.getTape().initTape(positional.get(1).toCharArray());
+
+        if (blockSize > 0) {
+            runMacro(m, blockSize, budget);
+            return;
+        }
+        if (explore) {
+            runExplore(m, budget);
+            return;
+        }
+
+        long start = System.nanoTime();
+        CompiledMachine compiled = CompiledMachine.compile(m);
+        Execution execution = new Execution(compiled, m.getTape(), compiled.getStartState());
+        execution.setLoopDetection(detectLoops);
+        Heatmap heatmap = heat ? new Heatmap(compiled, compiled.getStartState()) : null;
+        execution.setHeatmap(heatmap);
+        TraceRecorder recorder = null;
+        Execution.Outcome outcome;
+        try {
+            if (recordFile != null) {
+                recorder = new TraceRecorder(new File(recordFile), compiled, m.getTape(), compiled.getStartState());
+                execution.setTrace(recorder);
+            }
+            outcome = execution.run(budget);
+            if (recorder != null)
+                recorder.close();
+        } catch (IOException e) {
+            System.err.printf("Could not record to %s: %s\n", recordFile, e.getMessage());
+            System.exit(ERROR);
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        State result = compiled.getState(execution.getState());
+        System.out.printf("State:  %s\n", result.getName());
+        System.out.printf("Result: %s\n", execution.getVerdict());
+        if (outcome != Execution.Outcome.HALTED)
+            System.out.printf("Reason: %s\n", execution.describeOutcome(budget));
+        System.out.printf("Steps:  %d\n", execution.getSteps());
+        System.out.printf("Head:   %d\n", m.getTape().getTapeHead());
+        System.out.printf("Tape:   %s\n", m.getTape().toString());
+        System.out.printf("Time:   %.3f ms\n", elapsed / 1e6);
+        if (heatmap != null)
+            printHeatmap(heatmap);
+
+        if (outcome != Execution.Outcome.HALTED)
+            System.exit(OVER_BUDGET);
+        System.exit(execution.isAccepted() ? ACCEPT : REJECT);
+    }
+
+    // Visits of every state, then every transition taken, busiest first
+    private static void printHeatmap(Heatmap heatmap) {
+        CompiledMachine compiled = heatmap.getMachine();
+        long[] visits = heatmap.getStateVisits();
+        System.out.println("Visits:");
+        for (int s = 0; s < visits.length; s++)
+            System.out.printf("  %s: %d\n", compiled.getState(s).getName(), visits[s]);
+        System.out.println("Transitions:");
+        for (String line : heatmap.describeBusiest(compiled.getTransitionCount()))
+            System.out.printf("  %s\n", line);
+    }
+
+    // Same report as a plain run, plus how many macro steps it took
+    private static void runMacro(Machine m, int blockSize, RunBudget budget) {
+        long start = System.nanoTime();
+        CompiledMachine compiled = CompiledMachine.compile(m);
+        MacroExecution execution = new MacroExecution(compiled, blockSize, m.getTape(), compiled.getStartState());
+        Execution.Outcome outcome = execution.run(budget);
+        long elapsed = System.nanoTime() - start;
+
+        State result = compiled.getState(execution.getState());
+        System.out.printf("State:  %s\n", result.getName());
+        System.out.printf("Result: %s\n", execution.getVerdict());
+        if (outcome != Execution.Outcome.HALTED)
+            System.out.printf("Reason: %s\n", execution.describeOutcome(budget));
+        System.out.printf("Steps:  %d (%d macro steps, %d cached)\n",
+                execution.getSteps(), execution.getMacroSteps(), execution.getCachedSteps());
+        System.out.printf("Head:   %d\n", m.getTape().getTapeHead());
+        System.out.printf("Tape:   %s\n", m.getTape().toString());
+        System.out.printf("Time:   %.3f ms\n", elapsed / 1e6);
+
+        if (outcome != Execution.Outcome.HALTED)
+            System.exit(OVER_BUDGET);
+        System.exit(execution.isAccepted() ? ACCEPT : REJECT);
+    }
+
+    // Same report as a plain run with a line for each tape
+    private static void runMultiTape(Machine m, RunBudget budget) {
+        long start = System.nanoTime();
+        CompiledMultiTape compiled;
+        try {
+            compiled = CompiledMultiTape.compile(m);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(ERROR);
+            return;
+        }
+        MultiTapeExecution execution = new MultiTapeExecution(compiled, m, compiled.getStartState());
+        Execution.Outcome outcome = execution.run(budget);
+        long elapsed = System.nanoTime() - start;
+
+        State result = compiled.getState(execution.getState());
+        System.out.printf("State:  %s\n", result.getName());
+        System.out.printf("Result: %s\n", execution.getVerdict());
+        if (outcome != Execution.Outcome.HALTED)
+            System.out.printf("Reason: %s\n", execution.describeOutcome(budget));
+        System.out.printf("Steps:  %d\n", execution.getSteps());
+        for (int i = 0; i < m.getTapeCount(); i++) {
+            System.out.printf("Head %d: %d\n", i + 1, m.getTape(i).getTapeHead());
+            System.out.printf("Tape %d: %s\n", i + 1, m.getTape(i).toString());
+        }
+        System.out.printf("Time:   %.3f ms\n", elapsed / 1e6);
+
+        if (outcome != Execution.Outcome.HALTED)
+            System.exit(OVER_BUDGET);
+        System.exit(execution.isAccepted() ? ACCEPT : REJECT);
+    }
+
+    // Accept if any branch accepts, printing the steps of the one found
+    private static void runExplore(Machine m, RunBudget budget) {
+        long start = System.nanoTime();
+        CompiledMachine compiled = CompiledMachine.compile(m);
+        NondeterministicSearch search = new NondeterministicSearch(compiled);
+        Execution.Outcome outcome;
+        try {
+            outcome = search.run(compiled.getStartState(), m.getTape(), budget);
+        } catch (InterruptedException e) {
+            System.exit(ERROR);
+            return;
+        }
+        search.replay(m.getTape());
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("Result: %s\n", search.getVerdict());
+        if (outcome != Execution.Outcome.HALTED)
+            System.out.printf("Reason: %s\n", search.describeOutcome());
+        System.out.printf("Steps:  %d (%d configurations)\n", search.getDepth(), search.getConfigurations());
+        if (search.isAccepted()) {
+            System.out.printf("State:  %s\n", compiled.getState(search.getAcceptingState()).getName());
+            System.out.printf("Head:   %d\n", m.getTape().getTapeHead());
+            System.out.printf("Tape:   %s\n", m.getTape().toString());
+            System.out.println("Path:");
+            for (String step : search.describePath())
+                System.out.printf("  %s\n", step);
+        }
+        System.out.printf("Time:   %.3f ms\n", elapsed / 1e6);
+
+        if (outcome != Execution.Outcome.HALTED)
+            System.exit(OVER_BUDGET);
+        System.exit(search.isAccepted() ? ACCEPT : REJECT);
+    }
+
+    // Look up step n (counting from 1) of a recorded run, naming states and transitions
+    // from the machine it was recorded with
+    private static void showStep(Machine m, String traceFile, long n) {
+        CompiledMachine compiled = CompiledMachine.compile(m);
+        try (TraceFile trace = TraceFile.open(new File(traceFile))) {
+            if (n < 1 || n > trace.getSteps()) {
+                System.err.printf("Step %d is not in the recorded run, which has steps 1 to %d\n", n, trace.getSteps());
+                System.exit(ERROR);
+                return;
+            }
+            TraceFile.Step step = trace.step(n - 1);
+            if (step.getTransition() < 0 || step.getTransition() >= compiled.getTransitionCount()) {
+                System.err.printf("%s was not recorded with this machine\n", traceFile);
+                System.exit(ERROR);
+                return;
+            }
+            Transition t = compiled.getTransition(step.getTransition());
+            System.out.printf("Step %d: %s reads '%c' at %d, writes '%c', moves %s to %s\n",
+                    n, t.getFromState().getName(), step.getRead(), step.getPosition(),
+                    t.getWriteChar(), t.getMoveDirection(), t.getToState().getName());
+        } catch (IOException e) {
+            System.err.printf("Could not read %s: %s\n", traceFile, e.getMessage());
+            System.exit(ERROR);
+        }
+    }
+
+    // One input tape per line. Prints input, verdict, steps and final tape
+    // separated by tabs, in input order.
+    private static void runBatch(Machine m, String batchFile, RunBudget budget, boolean detectLoops) {
+        List<String> inputs;
+        try {
+            inputs = Files.readAllLines(new File(batchFile).toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.printf("Could not read %s: %s\n", batchFile, e.getMessage());
+            System.exit(ERROR);
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<BatchRunner.Result> results = new BatchRunner(CompiledMachine.compile(m), budget, detectLoops).run(inputs);
+        long elapsed = System.nanoTime() - start;
+
+        StringBuilder out = new StringBuilder();
+        int accepted = 0;
+        boolean overBudget = false;
+        for (BatchRunner.Result r : results) {
+            if (r.isAccepted())
+                accepted++;
+            if (r.getOutcome() != Execution.Outcome.HALTED)
+                overBudget = true;
+            out.append(r.getInput()).append('\t')
+                    .append(r.getVerdict()).append('\t')
+                    .append(r.getSteps()).append('\t')
+                    .append(r.getTape()).append('\n');
+        }
+        System.out.print(out);
+        System.out.printf("Accepted %d of %d inputs in %.3f ms\n", accepted, results.size(), elapsed / 1e6);
+
+        // Same codes as a single run, the worst input deciding
+        if (overBudget)
+            System.exit(OVER_BUDGET);
+        System.exit(accepted == results.size() ? ACCEPT : REJECT);
+    }
+
+    private static long parseLimit(String text) {
+        try {
+            long limit = Long.parseLong(text);
+            if (limit > 0)
+                return limit;
+        } catch (NumberFormatException e) {
+            // Fall through to the usage message
+        }
+        System.err.printf("Limits must be positive whole numbers, got %s\n", text);
+        usage();
+        return RunBudget.UNLIMITED;
+    }
+
+    private static long parseStep(String text) {
+        try {
+            long n = Long.parseLong(text);
+            if (n > 0)
+                return n;
+        } catch (NumberFormatException e) {
+            // Fall through to the usage message
+        }
+        System.err.printf("Steps are numbered from 1, got %s\n", text);
+        usage();
+        return 1;
+    }
+
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(ERROR);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// How often each transition of a CompiledMachine was taken, counted by
+// Execution while it runs (see Execution.setHeatmap). Only transitions are
+// counted, one array increment per step or sweep, and state visits are
+// worked out from them afterwards: a state is visited once each time a
+// transition enters it, plus once at the start.
+public final class Heatmap {
+    private final CompiledMachine machine;
+    private final int startState;
+
+    // Indexed by transition id, written directly by Execution's step loops
+    final long[] hits;
+
+    public Heatmap(CompiledMachine machine, int startState) {
+        this.machine = machine;
+        this.startState = startState;
+        this.hits = new long[machine.getTransitionCount()];
+    }
+
+    public CompiledMachine getMachine() {
+        return machine;
+    }
+
+    public long getTransitionHits(int transition) {
+        return hits[transition];
+    }
+
+    // Visits of every state, indexed by state id
+    public long[] getStateVisits() {
+        long[] visits = new long[machine.getStateCount()];
+        if (startState != CompiledMachine.NONE)
+            visits[startState] = 1;
+        for (int t = 0; t < hits.length; t++)
+            visits[machine.nextState(t)] += hits[t];
+        return visits;
+    }
+
+    public long getMaxTransitionHits() {
+        long max = 0;
+        for (long h : hits)
+            max = Math.max(max, h);
+        return max;
+    }
+
+    // Up to n transitions that were taken, busiest first
+    public List<String> describeBusiest(int n) {
+        ArrayList<Integer> taken = new ArrayList<>();
+        for (int t = 0; t < hits.length; t++) {
+            if (hits[t] > 0)
+                taken.add(t);
+        }
+        taken.sort((a, b) -> Long.compare(hits[b], hits[a]));
+
+        ArrayList<String> lines = new ArrayList<>();
+        for (int t : taken.subList(0, Math.min(n, taken.size()))) {
+            Transition tr = machine.getTransition(t);
+            lines.add(String.format("%d: %s reads '%c', writes '%c' moves %s to %s",
+                    hits[t], tr.getFromState().getName(), tr.getReadChar(), tr.getWriteChar(),
+                    tr.getMoveDirection(), tr.getToState().getName()));
+        }
+        return lines;
+    }
+
+    public void clear() {
+        Arrays.fill(hits, 0);
+    }
+
+    // Where count falls between 0 and max, from 0 to 1. Counts from a long
+    // run span many orders of magnitude, so the scale is logarithmic.
+    public static double level(long count, long max) {
+        if (count <= 0 || max <= 0)
+            return 0;
+        return Math.log1p(count) / Math.log1p(max);
+    }
+}
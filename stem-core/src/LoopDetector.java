@@ -0,0 +1,141 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+// Proves that a run will never halt by finding a configuration
+// (state, head position and tape) that has been seen before.
+//
+// The tape is summarised by a hash that is the sum of one value per
+// non-blank cell, so a write only has to swap out the old cell's value.
+// Following Brent's cycle finding, one configuration is remembered at
+// steps 1, 2, 4, 8, ... and every later configuration is compared to it.
+// A repeat with a period of p is found by about step 2 * (start + p),
+// and only the one remembered configuration is ever kept.
+public class LoopDetector {
+    private long tapeHash;
+
+    private long power = 1;
+    private long lam = 0;
+
+    // The remembered configuration, with its tape trimmed of blanks
+    private long savedHash;
+    private long savedStep = -1;
+    private int savedState;
+    private long savedHead;
+    private long savedTapeStart;
+    private char[] savedTape;
+
+    private long loopStart = -1;
+    private long period;
+
+    public LoopDetector(Tape tape) {
+        for (int i = 0; i < tape.getSize(); i++)
+            tapeHash += cellHash(i - tape.getOrigin(), tape.charAt(i));
+    }
+
+    // A cell at position (index - origin) changed from old to now
+    public void written(long position, char old, char now) {
+        tapeHash += cellHash(position, now) - cellHash(position, old);
+    }
+
+    // Call after every step. Returns true once the configuration has
+    // provably repeated.
+    public boolean check(int state, Tape tape, long step) {
+        long head = tape.getTapeHead() - tape.getOrigin();
+        long hash = mix(tapeHash ^ mix(state + 1) ^ mix(head * 0xC2B2AE3D27D4EB4FL));
+
+        if (savedStep >= 0 && hash == savedHash && state == savedState
+                && head == savedHead && sameTape(tape)) {
+            loopStart = savedStep;
+            period = step - savedStep;
+            return true;
+        }
+
+        lam++;
+        if (lam == power || savedStep < 0) {
+            save(hash, state, head, tape, step);
+            power *= 2;
+            lam = 0;
+        }
+        return false;
+    }
+
+    // Step of the first configuration known to repeat
+    public long getLoopStart() {
+        return loopStart;
+    }
+
+    // Steps between repeats
+    public long getPeriod() {
+        return period;
+    }
+
+    private void save(long hash, int state, long head, Tape tape, long step) {
+        int from = firstUsed(tape);
+        int to = lastUsed(tape);
+        savedHash = hash;
+        savedState = state;
+        savedHead = head;
+        savedStep = step;
+        savedTapeStart = from - tape.getOrigin();
+        savedTape = new char[Math.max(0, to - from + 1)];
+        for (int i = from; i <= to; i++)
+            savedTape[i - from] = tape.charAt(i);
+    }
+
+    private boolean sameTape(Tape tape) {
+        int from = firstUsed(tape);
+        int to = lastUsed(tape);
+        if (to - from + 1 != savedTape.length)
+            return savedTape.length == 0 && to < from;
+        if (savedTape.length > 0 && from - tape.getOrigin() != savedTapeStart)
+            return false;
+        for (int i = from; i <= to; i++) {
+            if (tape.charAt(i) != savedTape[i - from])
+                return false;
+        }
+        return true;
+    }
+
+    private static int firstUsed(Tape tape) {
+        int i = 0;
+        while (i < tape.getSize() && tape.charAt(i) == ' ')
+            i++;
+        return i;
+    }
+
+    private static int lastUsed(Tape tape) {
+        int i = tape.getSize() - 1;
+        while (i >= 0 && tape.charAt(i) == ' ')
+            i--;
+        return i;
+    }
+
+    // Blank cells count for nothing so growing the tape leaves the hash alone
+    private static long cellHash(long position, char c) {
+        if (c == ' ')
+            return 0;
+        return mix(position * 0x9E3779B97F4A7C15L + c);
+    }
+
+    // 64 bit finaliser from MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85313L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
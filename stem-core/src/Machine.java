@@ -0,0 +1,226 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+class Machine {
+	// Speeds that are not a delay in milliseconds
+	public static final int MANUAL = -1;
+	public static final int TURBO = -2;
+	// Every branch of a nondeterministic machine at once, see NondeterministicSearch
+	public static final int EXPLORE = -3;
+
+	private State startState;
+	private ArrayList<State> states = new ArrayList<>();
+	private ArrayList<Transition> transitions = new ArrayList<>();
+	private int speed;
+	private Tape tape;
+
+	// Tapes after the first, for k-tape machines
+	private ArrayList<Tape> moreTapes = new ArrayList<>();
+
+	// Tapes saved to a tape file of their own, by tape number, see TapeFile
+	private HashMap<Integer, String> tapeFiles = new HashMap<>();
+
+	Machine(){
+		this.tape = new Tape();
+		this.speed = 250;
+	}
+
+	Machine(ArrayList<State> states, ArrayList<Transition> transitions, State startState){
+		this.states = states;
+		this.transitions = transitions;
+		this.startState = startState;
+		this.tape = new Tape();
+		this.speed = 250;
+	}
+
+	public Tape getTape() {
+		return tape;
+	}
+
+	public void setTape(Tape t) {
+		tape = t;
+	}
+
+	public int getTapeCount() {
+		return 1 + moreTapes.size();
+	}
+
+	// Tape i of a k-tape machine, tape 0 is getTape()
+	public Tape getTape(int i) {
+		return (i == 0) ? tape : moreTapes.get(i - 1);
+	}
+
+	// Add blank tapes or drop tapes from the end until there are k. Every
+	// transition is cut or padded to k tapes with it, the new ones read as
+	// '~', are left alone and not moved.
+	public void setTapeCount(int k) {
+		while (getTapeCount() < k)
+			moreTapes.add(new Tape());
+		while (getTapeCount() > Math.max(k, 1)) {
+			tapeFiles.remove(getTapeCount() - 1);
+			moreTapes.remove(moreTapes.size() - 1);
+		}
+
+		int more = getTapeCount() - 1;
+		for (Transition t : transitions) {
+			if (t.getTapeCount() == more + 1)
+				continue;
+			char[] read = new char[more];
+			char[] write = new char[more];
+			Transition.Direction[] move = new Transition.Direction[more];
+			for (int i = 0; i < more; i++) {
+				read[i] = t.getReadChar(i + 1);
+				write[i] = t.getWriteChar(i + 1);
+				move[i] = t.getMoveDirection(i + 1);
+			}
+			t.setMoreTapes(read, write, move);
+		}
+	}
+
+	// Path of the file tape i is saved to, as written in the save file, or
+	// null when its cells are saved in the machine file itself
+	public String getTapeFile(int i) {
+		return tapeFiles.get(i);
+	}
+
+	public void setTapeFile(int i, String path) {
+		if (path == null)
+			tapeFiles.remove(i);
+		else
+			tapeFiles.put(i, path);
+	}
+
+	public State getStartState() {
+		return startState;
+	}
+	
+	public void setStartState(State startState) {
+		this.startState = startState;
+	}
+	
+	public ArrayList<State> getStates() {
+		return states;
+	}
+	
+	public void setStates(ArrayList<State> states) {
+		this.states = states;
+	}
+	
+	public void addState(State state){
+		states.add(state);
+	}
+	
+	public void deleteState(State state){
+		states.remove(state);
+	}
+
+	// One more than the highest numbered state and never below 0, the
+	// name for the next state added in the editor
+	public int getNextStateId(){
+		int next = 0;
+		for(State s : states){
+			try {
+				next = Math.max(next, Integer.parseInt(s.getName()) + 1);
+			} catch (NumberFormatException e) {
+				// Only numbered states count
+			}
+		}
+		return next;
+	}
+	
+	public ArrayList<Transition> getTransitions() {
+		return transitions;
+	}
+	
+	public void setTransitions(ArrayList<Transition> transitions) {
+		this.transitions = transitions;
+	}
+
+	public int getSpeed() {
+		return speed;
+	}
+
+	public void setSpeed(int speed) {
+	    Trace.debug("Speed: %d", speed);
+		this.speed = speed;
+	}
+
+	public String toString(){
+		//System.out.println("I'm in toString");
+		StringBuilder ret = new StringBuilder();
+		int tapes = getTapeCount();
+		double version = !tapeFiles.isEmpty() ? 3.0 : (tapes > 1) ? 2.0 : 1.0;
+		ret.append(String.format("// Save File for STEM\n// Version %.2f\n\n", version));
+		if (tapes > 1) {
+			ret.append("// Tapes format: number of tapes\n");
+			ret.append(String.format("TAPES:\n\t%d\n\n", tapes));
+		}
+		ret.append("// State Format: name x y start accept\n");
+		ret.append("STATES:\n");
+
+		// TODO: This needs to be changed to add more information for states when saving a file
+		for (State s : states){
+			ret.append(String.format("\t%s %f %f %s %s %f %f %f %f\n",
+					s.getName(), s.getX(), s.getY(),
+					Boolean.toString((startState == s)), Boolean.toString(s.isAccept()), s.getRed(),
+					s.getGreen(), s.getBlue(), s.getOpacity()));
+		}
+		ret.append("\n");
+
+		ret.append("// Transition format: fromStateId toStateId readCHar writeChar moveDirection\n");
+		if (tapes > 1)
+			ret.append("// followed by readChar writeChar moveDirection for each tape after the first\n");
+		ret.append("// The Character '~' is the catchall character\n");
+		ret.append("TRANSITION:\n");
+
+		for (Transition t : transitions){
+			ret.append(String.format("\t%d %d %c %c %s",
+					Integer.parseInt(t.getFromState().getName()),
+					Integer.parseInt(t.getToState().getName()),
+					t.getReadChar(), t.getWriteChar(), t.getMoveDirection().toString()));
+			for (int i = 1; i < tapes; i++)
+				ret.append(String.format(" %c %c %s",
+						t.getReadChar(i), t.getWriteChar(i), t.getMoveDirection(i).toString()));
+			ret.append("\n");
+		}
+		ret.append("\n");
+
+		ret.append("// Tape format: tapeChar(0) tapeChar(1) ... tapeChar(n)\n");
+		if (!tapeFiles.isEmpty())
+			ret.append("// or TAPE FILE: with the path of a file holding the cells\n");
+		for (int i = 0; i < tapes; i++) {
+			Tape tape = getTape(i);
+			if (getTapeFile(i) != null) {
+				ret.append("TAPE FILE:\n");
+				ret.append(String.format("\t%d\n", tape.getTapeHead()));
+				ret.append("\t").append(getTapeFile(i)).append("\n");
+				continue;
+			}
+			ret.append("TAPE:\n");
+
+			ret.append(String.format("\t%d\n", tape.getTapeHead()));
+			ret.append("\t");
+			for (Character c : tape.getTapeAsArray()){
+				ret.append(String.format("%c", c));
+			}
+			ret.append("\n");
+		}
+
+		return ret.toString();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+// Converts a machine file between the text and binary formats. The output
+// is binary when its name ends in .stmb and STEM text otherwise; the input
+// can be any format SaveLoad reads.
+//
+// Usage: java -cp stem-core.jar MachineConverter <in file> <out file>
+public class MachineConverter {
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: MachineConverter <in file> <out file>\n" +
+                    "Writes the binary format when the out file ends in " + BinaryMachineFile.EXTENSION +
+                    ", STEM text otherwise.");
+            System.exit(2);
+        }
+        SaveLoad saveLoad = new SaveLoad();
+        File in = new File(args[0]);
+        File out = new File(args[1]);
+        try {
+            Machine m = saveLoad.loadFile(in);
+            if (m == null) {
+                System.err.printf("%s is not a STEM or xTuringMachine file\n", in);
+                System.exit(2);
+            }
+            if (out.getName().endsWith(BinaryMachineFile.EXTENSION))
+                saveLoad.saveBinaryFile(out, m);
+            else
+                saveLoad.saveFile(out, m);
+        } catch (IOException e) {
+            System.err.printf("Could not convert %s: %s\n", in, e.getMessage());
+            System.exit(2);
+        }
+    }
+}
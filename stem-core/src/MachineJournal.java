@@ -0,0 +1,587 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Write-ahead journal of the edits made to a saved machine since it was
+// last saved, so they survive a crash. Each edit is encoded on the calling
+// thread into a record the size of the edit, and a background thread
+// appends it to <file>.journal. That thread also applies every record to
+// its own copy of the machine; once the journal grows past COMPACT_RECORDS
+// or COMPACT_BYTES it writes the copy whole to <file>.autosave (the binary
+// format) and starts the journal over on top of it. Saving the machine
+// starts over on top of the saved file. Tapes changed by a run are encoded
+// on the background thread, as the cells that differ from the copy's.
+//
+// The journal starts with magic, version, base (the machine file or the
+// autosave), and the length and modification time of the machine file as
+// last saved and of the base. A journal whose machine file or base has
+// changed since is out of date and is never replayed. Each
+// record is its length, an opcode and operands, then a CRC32; replay stops
+// at the first record cut short by a crash.
+public class MachineJournal {
+    static final long MAGIC = 0x5354454D4A524E31L;   // "STEMJRN1"
+    static final int VERSION = 2;
+
+    static final int COMPACT_RECORDS = 1000;
+    static final long COMPACT_BYTES = 1 << 20;
+
+    private static final int BASE_FILE = 0;
+    private static final int BASE_AUTOSAVE = 1;
+    private static final int HEADER = 8 + 4 + 1 + 4 * 8;
+
+    private static final int ADD_STATE = 1;
+    private static final int DELETE_STATE = 2;
+    private static final int MOVE_STATE = 3;
+    private static final int SET_START = 4;
+    private static final int SET_ACCEPT = 5;
+    private static final int SET_COLOR = 6;
+    private static final int ADD_TRANSITION = 7;
+    private static final int DELETE_TRANSITION = 8;
+    private static final int SET_TAPE = 9;
+    private static final int SET_CELLS = 10;
+    private static final int SET_TAPE_FILE = 11;
+    private static final int SET_TAPE_COUNT = 12;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "STEM journal");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Only touched on the writer thread
+    private File file;
+    private FileChannel channel;
+    private Replay copy;
+    private long savedLength;
+    private long savedModified;
+    private IOException failure;
+
+    private volatile boolean open;
+
+    private MachineJournal() { }
+
+    public static File journalFile(File file) {
+        return new File(file.getPath() + ".journal");
+    }
+
+    public static File autosaveFile(File file) {
+        return new File(file.getPath() + ".autosave");
+    }
+
+    // The machine saved in file with the journaled edits made to it since,
+    // or null if there are none to recover
+    public static Machine recover(File file) throws IOException {
+        Replay r = replay(file);
+        return (r == null || (r.records == 0 && !r.autosaved)) ? null : r.machine;
+    }
+
+    // Journal edits to the machine saved in file. With resume the edits
+    // already journaled are kept, for a machine just recovered; otherwise
+    // they are thrown away.
+    public static MachineJournal start(File file, boolean resume) {
+        MachineJournal journal = new MachineJournal();
+        journal.open = true;
+        journal.submit(() -> journal.begin(file, resume));
+        return journal;
+    }
+
+    // The machine was just saved to file, maybe under a new name
+    public void saved(File file) {
+        submit(() -> {
+            closeChannel();
+            delete(this.file);
+            begin(file, false);
+        });
+    }
+
+    // Stop journaling and remove the journal, once the edits are saved or
+    // the user has chosen to drop them. Waits for the writer to finish.
+    public void discard() {
+        submit(() -> {
+            closeChannel();
+            delete(file);
+        });
+        open = false;
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void addState(State s) {
+        record(ADD_STATE, out -> {
+            out.writeUTF(s.getName());
+            out.writeDouble(s.getX());
+            out.writeDouble(s.getY());
+        });
+    }
+
+    public void deleteState(State s) {
+        record(DELETE_STATE, out -> out.writeUTF(s.getName()));
+    }
+
+    public void moveState(State s) {
+        record(MOVE_STATE, out -> {
+            out.writeUTF(s.getName());
+            out.writeDouble(s.getX());
+            out.writeDouble(s.getY());
+        });
+    }
+
+    // s is null when the machine is left without a start state
+    public void setStart(State s) {
+        record(SET_START, out -> {
+            out.writeBoolean(s != null);
+            if (s != null)
+                out.writeUTF(s.getName());
+        });
+    }
+
+    public void setAccept(State s) {
+        record(SET_ACCEPT, out -> {
+            out.writeUTF(s.getName());
+            out.writeBoolean(s.isAccept());
+        });
+    }
+
+    public void setColor(State s) {
+        record(SET_COLOR, out -> {
+            out.writeUTF(s.getName());
+            out.writeDouble(s.getRed());
+            out.writeDouble(s.getGreen());
+            out.writeDouble(s.getBlue());
+            out.writeDouble(s.getOpacity());
+        });
+    }
+
+    // t was just added to the end of the machine's transitions
+    public void addTransition(Transition t) {
+        int tapes = t.getTapeCount();
+        record(ADD_TRANSITION, out -> {
+            out.writeUTF(t.getFromState().getName());
+            out.writeUTF(t.getToState().getName());
+            out.writeInt(tapes);
+            for (int i = 0; i < tapes; i++) {
+                out.writeChar(t.getReadChar(i));
+                out.writeChar(t.getWriteChar(i));
+                out.writeByte(t.getMoveDirection(i).ordinal());
+            }
+        });
+    }
+
+    // Transition index of the machine's transitions is about to be removed
+    public void deleteTransition(int index) {
+        record(DELETE_TRANSITION, out -> out.writeInt(index));
+    }
+
+    // Tape i is now tape, cells, head and all, as after a run or Reset.
+    // Only the cells that differ from the copy's tape are written, worked
+    // out on the writer thread. Afterwards the copy shares tape's chunks,
+    // so the next time only chunks written since are compared.
+    public void setTape(int i, Tape.Snapshot tape) {
+        if (!open)
+            return;
+        submit(() -> {
+            Tape copyTape = copy.machine.getTape(i);
+            Tape.Snapshot base = copyTape.snapshot();
+            int[] changed = tape.changedSince(base);
+            if (changed.length == 0 && tape.getTapeHead() == base.getTapeHead()
+                    && tape.getOrigin() == base.getOrigin() && tape.getSize() == base.getSize())
+                return;
+            // Cells added on the left rather than the origin, which save
+            // files and so the autosave do not keep
+            append(frame(SET_TAPE, out -> {
+                out.writeInt(i);
+                out.writeInt(tape.getTapeHead());
+                out.writeInt(tape.getOrigin() - base.getOrigin());
+                out.writeInt(tape.getSize());
+                out.writeInt(changed.length / 2);
+                for (int r = 0; r < changed.length; r += 2) {
+                    char[] cells = new char[changed[r + 1] - changed[r]];
+                    tape.getCells(changed[r], cells);
+                    out.writeInt(changed[r]);
+                    writeChars(out, cells);
+                }
+            }));
+            copyTape.restore(tape);
+        });
+    }
+
+    // Tape.setCells(start, cells) was called on tape i
+    public void setCells(int i, int start, char[] cells) {
+        record(SET_CELLS, out -> {
+            out.writeInt(i);
+            out.writeInt(start);
+            writeChars(out, cells);
+        });
+    }
+
+    // Tape i was loaded from the tape file at path, see TapeFile
+    public void setTapeFile(int i, String path) {
+        record(SET_TAPE_FILE, out -> {
+            out.writeInt(i);
+            out.writeUTF(path);
+        });
+    }
+
+    public void setTapeCount(int k) {
+        record(SET_TAPE_COUNT, out -> out.writeInt(k));
+    }
+
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    // Frame the record here, while the machine still looks the way it did
+    private void record(int op, Encoder encoder) {
+        if (!open)
+            return;
+        byte[] record = frame(op, encoder);
+        submit(() -> append(record));
+    }
+
+    private static byte[] frame(int op, Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeByte(op);
+            encoder.write(out);
+            out.writeInt(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] record = bytes.toByteArray();
+        int length = record.length - 8;
+        ByteBuffer.wrap(record).putInt(0, length);
+        CRC32 crc = new CRC32();
+        crc.update(record, 4, length);
+        ByteBuffer.wrap(record).putInt(record.length - 4, (int) crc.getValue());
+        return record;
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    // Journaling stops at the first failure, the editor keeps going without it
+    private void submit(Task task) {
+        try {
+            writer.execute(() -> {
+                if (failure != null)
+                    return;
+                try {
+                    task.run();
+                } catch (IOException | RuntimeException e) {
+                    failure = (e instanceof IOException) ? (IOException) e : new IOException(e);
+                    closeChannel();
+                    Trace.error("Journal for %s stopped: %s", file, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Already discarded
+        }
+    }
+
+    private void begin(File file, boolean resume) throws IOException {
+        this.file = file;
+        copy = resume ? replay(file) : null;
+        if (copy != null) {
+            savedLength = copy.savedLength;
+            savedModified = copy.savedModified;
+            channel = FileChannel.open(journalFile(file).toPath(), StandardOpenOption.WRITE);
+            channel.truncate(copy.end);
+            channel.position(copy.end);
+            return;
+        }
+        Machine m = new SaveLoad().loadFile(file);
+        if (m == null)
+            throw new IOException(file + " is not a machine file");
+        copy = new Replay(m, SaveLoad.directory(file));
+        savedLength = file.length();
+        savedModified = file.lastModified();
+        Files.deleteIfExists(autosaveFile(file).toPath());
+        startJournal(BASE_FILE, file);
+    }
+
+    private void append(byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        channel.force(false);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, 4, record.length - 8));
+        copy.apply(in.readByte(), in);
+        copy.records++;
+        if (copy.records >= COMPACT_RECORDS || channel.position() >= COMPACT_BYTES)
+            compact();
+    }
+
+    // Write the copy whole and start the journal over on top of it. Each
+    // file is replaced in one move, so a crash at any point leaves either
+    // the old journal on its old base or the new one on the new.
+    private void compact() throws IOException {
+        File autosave = autosaveFile(file);
+        File tmp = new File(autosave.getPath() + ".tmp");
+        // Tape files are only written on save, edits to their tapes go here
+        BinaryMachineFile.write(tmp, copy.machine, true);
+        try (FileChannel c = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE)) {
+            c.force(true);
+        }
+        closeChannel();
+        SaveLoad.replace(tmp, autosave);
+        startJournal(BASE_AUTOSAVE, autosave);
+        copy.records = 0;
+    }
+
+    private void startJournal(int base, File baseFile) throws IOException {
+        File journal = journalFile(file);
+        File tmp = new File(journal.getPath() + ".tmp");
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putLong(MAGIC);
+        header.putInt(VERSION);
+        header.put((byte) base);
+        header.putLong(savedLength);
+        header.putLong(savedModified);
+        header.putLong(baseFile.length());
+        header.putLong(baseFile.lastModified());
+        header.flip();
+        try (FileChannel c = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining())
+                c.write(header);
+            c.force(true);
+        }
+        SaveLoad.replace(tmp, journal);
+        channel = FileChannel.open(journal.toPath(), StandardOpenOption.WRITE);
+        channel.position(HEADER);
+    }
+
+    private void closeChannel() {
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing more will be written to it
+        }
+        channel = null;
+    }
+
+    private static void delete(File file) throws IOException {
+        if (file == null)
+            return;
+        Files.deleteIfExists(journalFile(file).toPath());
+        Files.deleteIfExists(autosaveFile(file).toPath());
+    }
+
+    private static void writeChars(DataOutputStream out, char[] cells) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(2 * cells.length);
+        bytes.asCharBuffer().put(cells);
+        out.writeInt(cells.length);
+        out.write(bytes.array());
+    }
+
+    private static char[] readChars(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[2 * in.readInt()];
+        in.readFully(bytes);
+        char[] cells = new char[bytes.length / 2];
+        ByteBuffer.wrap(bytes).asCharBuffer().get(cells);
+        return cells;
+    }
+
+    // The base of the journal of file with its whole records applied, null
+    // if there is no journal or it is out of date
+    private static Replay replay(File file) throws IOException {
+        File journal = journalFile(file);
+        if (!journal.isFile())
+            return null;
+        byte[] bytes = Files.readAllBytes(journal.toPath());
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER || in.getLong() != MAGIC || in.getInt() != VERSION)
+            return null;
+        int base = in.get();
+        long savedLength = in.getLong();
+        long savedModified = in.getLong();
+        File baseFile = (base == BASE_AUTOSAVE) ? autosaveFile(file) : file;
+        if (file.length() != savedLength || file.lastModified() != savedModified
+                || baseFile.length() != in.getLong() || baseFile.lastModified() != in.getLong())
+            return null;
+        Machine m = (base == BASE_AUTOSAVE) ? BinaryMachineFile.read(baseFile) : new SaveLoad().loadFile(baseFile);
+        if (m == null)
+            return null;
+
+        Replay r = new Replay(m, SaveLoad.directory(file));
+        r.autosaved = (base == BASE_AUTOSAVE);
+        r.savedLength = savedLength;
+        r.savedModified = savedModified;
+        r.end = HEADER;
+        while (r.end + 8 <= bytes.length) {
+            int length = in.getInt((int) r.end);
+            if (length < 1 || r.end + 8 + length > bytes.length)
+                break;
+            CRC32 crc = new CRC32();
+            crc.update(bytes, (int) r.end + 4, length);
+            if ((int) crc.getValue() != in.getInt((int) r.end + 4 + length))
+                break;
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes, (int) r.end + 4, length));
+            r.apply(record.readByte(), record);
+            r.records++;
+            r.end += 8 + length;
+        }
+        return r;
+    }
+
+    // A machine with records being applied to it, finding states by name
+    private static final class Replay {
+        final Machine machine;
+        final File dir;
+        final HashMap<String, State> states = new HashMap<>();
+        boolean autosaved;
+        long savedLength;
+        long savedModified;
+        int records;
+        long end;
+
+        Replay(Machine machine, File dir) {
+            this.machine = machine;
+            this.dir = dir;
+            for (State s : machine.getStates())
+                states.put(s.getName(), s);
+        }
+
+        void apply(int op, DataInputStream in) throws IOException {
+            switch (op) {
+                case ADD_STATE: {
+                    State s = new State(in.readUTF(), in.readDouble(), in.readDouble());
+                    machine.addState(s);
+                    states.put(s.getName(), s);
+                    break;
+                }
+                case DELETE_STATE: {
+                    // Along with every transition into or out of it, as the editor does
+                    State s = state(in.readUTF());
+                    states.remove(s.getName());
+                    machine.getTransitions().removeIf(t -> {
+                        if (t.getFromState() != s && t.getToState() != s)
+                            return false;
+                        t.getFromState().getTransition().remove(t);
+                        return true;
+                    });
+                    if (machine.getStartState() == s)
+                        machine.setStartState(null);
+                    machine.deleteState(s);
+                    break;
+                }
+                case MOVE_STATE: {
+                    State s = state(in.readUTF());
+                    s.setX(in.readDouble());
+                    s.setY(in.readDouble());
+                    break;
+                }
+                case SET_START:
+                    machine.setStartState(in.readBoolean() ? state(in.readUTF()) : null);
+                    break;
+                case SET_ACCEPT:
+                    state(in.readUTF()).setAccept(in.readBoolean());
+                    break;
+                case SET_COLOR:
+                    state(in.readUTF()).setColor(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+                    break;
+                case ADD_TRANSITION: {
+                    State from = state(in.readUTF());
+                    State to = state(in.readUTF());
+                    int tapes = in.readInt();
+                    char[] read = new char[tapes];
+                    char[] write = new char[tapes];
+                    Transition.Direction[] move = new Transition.Direction[tapes];
+                    for (int i = 0; i < tapes; i++) {
+                        read[i] = in.readChar();
+                        write[i] = in.readChar();
+                        move[i] = Transition.Direction.values()[in.readByte()];
+                    }
+                    Transition t = new Transition(to, from, read[0], write[0], move[0]);
+                    if (tapes > 1)
+                        t.setMoreTapes(Arrays.copyOfRange(read, 1, tapes), Arrays.copyOfRange(write, 1, tapes),
+                                Arrays.copyOfRange(move, 1, tapes));
+                    from.getTransition().add(t);
+                    machine.getTransitions().add(t);
+                    break;
+                }
+                case DELETE_TRANSITION: {
+                    Transition t = machine.getTransitions().remove(in.readInt());
+                    t.getFromState().getTransition().remove(t);
+                    break;
+                }
+                case SET_TAPE: {
+                    Tape tape = machine.getTape(in.readInt());
+                    int head = in.readInt();
+                    int left = in.readInt();
+                    tape.resize(tape.getOrigin() + left, in.readInt());
+                    for (int runs = in.readInt(); runs > 0; runs--) {
+                        int start = in.readInt();
+                        tape.setCells(start, readChars(in));
+                    }
+                    tape.moveHead(head);
+                    break;
+                }
+                case SET_CELLS: {
+                    Tape tape = machine.getTape(in.readInt());
+                    int start = in.readInt();
+                    tape.setCells(start, readChars(in));
+                    break;
+                }
+                case SET_TAPE_FILE: {
+                    int i = in.readInt();
+                    String path = in.readUTF();
+                    TapeFile.load(TapeFile.resolve(dir, path), machine.getTape(i));
+                    machine.setTapeFile(i, path);
+                    break;
+                }
+                case SET_TAPE_COUNT:
+                    machine.setTapeCount(in.readInt());
+                    break;
+                default:
+                    throw new IOException("Bad journal record " + op);
+            }
+        }
+
+        private State state(String name) throws IOException {
+            State s = states.get(name);
+            if (s == null)
+                throw new IOException("Journal names missing state " + name);
+            return s;
+        }
+    }
+}
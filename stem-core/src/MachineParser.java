@@ -0,0 +1,547 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Reads STEM and xTuringMachine files in one pass. Each line goes into a
+// reused buffer and its fields are picked out by position, so no String is
+// made per line or field. State ids from the file map to dense ints in the
+// order the states are met. A parser is good for one file; SaveLoad makes a
+// new one per load, so loads on different threads share nothing.
+final class MachineParser {
+    static final String STEM_HEADER = "// Save File for STEM";
+    static final String JFLAPISH_HEADER = "// Save File for JFLAP-ISH";
+    static final String XTURING_HEADER = "xTuringMachine File Format 1.0";
+
+    // Exact powers of ten, see decimal()
+    private static final double[] POWERS = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final Reader in;
+    // Where tape files are looked for, null for the working directory
+    private final File dir;
+    private final char[] buf = new char[16384];
+    private int bufPos, bufLen;
+    // A '\r' ended the last line, drop a '\n' right after it
+    private boolean skipLF;
+
+    // The current line without its terminator, the next field in it, and
+    // whether a field did not parse
+    private char[] line = new char[256];
+    private int len, pos;
+    private boolean bad;
+
+    private final IdMap ids = new IdMap();
+    private final ArrayList<State> states = new ArrayList<>();
+
+    MachineParser(Reader in, File dir) {
+        this.in = in;
+        this.dir = dir;
+    }
+
+    // Reads the header and the machine after it, null if the header is not recognised
+    Machine parse() throws IOException {
+        if (!nextLine())
+            throw new EOFException("Empty file");
+        if (lineIs(STEM_HEADER) || lineIs(JFLAPISH_HEADER))
+            return stem();
+        if (lineIs(XTURING_HEADER))
+            return xTuring();
+        return null;
+    }
+
+    // The rest of a STEM file, from just after the header
+    Machine stem() throws IOException {
+        Machine m = new Machine();
+
+        // Read until beginning of states, noting the tape count of a k-tape machine
+        int tapeCount = 1;
+        while (!lineIs("STATES:")) {
+            if (!nextLine())
+                throw new EOFException("Missing states");
+            if (lineIs("TAPES:")) {
+                if (!nextLine())
+                    throw new EOFException("Missing tape count");
+                skipBlanks();
+                tapeCount = integer();
+                skipBlanks();
+                if (bad || pos != len || tapeCount < 1)
+                    throw new IOException("Bad tape count");
+            }
+        }
+        m.setTapeCount(tapeCount);
+
+        // name x y start accept [red green blue opacity], other lines are skipped
+        while (true) {
+            if (!nextLine())
+                throw new EOFException("Missing transitions");
+            if (lineStartsWith("//"))
+                break;
+            expect('\t');
+            int id = integer();
+            expect(' ');
+            double x = decimal();
+            expect(' ');
+            double y = decimal();
+            expect(' ');
+            boolean start = bool();
+            expect(' ');
+            boolean accept = bool();
+            double red = 0, green = 0, blue = 0, opacity = 0;
+            boolean colored = !bad && pos < len;
+            if (colored) {
+                expect(' ');
+                red = decimal();
+                expect(' ');
+                green = decimal();
+                expect(' ');
+                blue = decimal();
+                expect(' ');
+                opacity = decimal();
+            }
+            if (bad || pos != len)
+                continue;
+
+            State s = new State();
+            s.setName(Integer.toString(id));
+            s.setX(x);
+            s.setY(y);
+            s.setAccept(accept);
+            if (colored)
+                s.setColor(red, green, blue, opacity);
+            if (start)
+                m.setStartState(s);
+            m.addState(s);
+            ids.put(id, states.size());
+            states.add(s);
+        }
+
+        while (!lineIs("TRANSITION:")) {
+            if (!nextLine())
+                throw new EOFException("Missing transitions");
+        }
+
+        // from to read write move, then read write move for each further tape
+        ArrayList<Transition> transitions = m.getTransitions();
+        while (nextLine() && !lineStartsWith("//")) {
+            expect('\t');
+            int from = integer();
+            expect(' ');
+            int to = integer();
+            expect(' ');
+            char read = anyChar();
+            expect(' ');
+            char write = anyChar();
+            expect(' ');
+            Transition.Direction move = direction();
+            if (bad)
+                continue;
+            boolean unknownMove = move == null;
+
+            // Tapes the line leaves out are not touched by the transition
+            char[] moreRead = null, moreWrite = null;
+            Transition.Direction[] moreMove = null;
+            int tape = 0;
+            while (pos < len && !bad) {
+                if (moreRead == null) {
+                    moreRead = new char[tapeCount - 1];
+                    moreWrite = new char[tapeCount - 1];
+                    moreMove = new Transition.Direction[tapeCount - 1];
+                    Arrays.fill(moreRead, '~');
+                    Arrays.fill(moreWrite, '~');
+                    Arrays.fill(moreMove, Transition.Direction.STAY);
+                }
+                expect(' ');
+                char r = anyChar();
+                expect(' ');
+                char w = anyChar();
+                expect(' ');
+                Transition.Direction d = direction();
+                if (bad)
+                    break;
+                if (tape == moreRead.length)
+                    throw new IOException("Transition uses more tapes than the machine has");
+                moreRead[tape] = r;
+                moreWrite[tape] = w;
+                moreMove[tape] = d;
+                unknownMove |= d == null;
+                tape++;
+            }
+            if (bad)
+                continue;
+            if (unknownMove)
+                throw new IOException("Bad Transition");
+
+            State fromState = state(from);
+            Transition t = new Transition(state(to), fromState, read, write, move);
+            if (moreRead != null)
+                t.setMoreTapes(moreRead, moreWrite, moreMove);
+            fromState.getTransition().add(t);
+            transitions.add(t);
+        }
+
+        // One TAPE section per tape: the head, then the cells after a tab.
+        // A TAPE FILE section has the path of a tape file instead of the cells.
+        for (int i = 0; i < tapeCount; i++) {
+            while (!lineIs("TAPE:") && !lineIs("TAPE FILE:")) {
+                if (!nextLine())
+                    throw new IOException("Missing tape " + (i + 1));
+            }
+            boolean external = lineIs("TAPE FILE:");
+            if (!nextLine())
+                throw new IOException("Missing tape " + (i + 1));
+            expect('\t');
+            int head = integer();
+            if (bad || pos != len)
+                throw new IOException("Bad tape head");
+            if (!nextLine())
+                throw new IOException("Missing tape " + (i + 1));
+            Tape t = m.getTape(i);
+            if (external) {
+                String path = new String(line, Math.min(1, len), len - Math.min(1, len));
+                TapeFile.load(TapeFile.resolve(dir, path), t);
+                m.setTapeFile(i, path);
+            } else {
+                t.initTape(Arrays.copyOfRange(line, Math.min(1, len), len));
+            }
+            t.setTapeHead(head);
+        }
+        return m;
+    }
+
+    // The rest of an xTuringMachine file, from just after the header
+    Machine xTuring() throws IOException {
+        Machine m = new Machine();
+        // TransitionCharacters MaxStates (Not needed for our machine)
+        if (!nextLine())
+            throw new EOFException();
+
+        // TapeMinIndex TapeMaxIndex TapeHeadIndex;
+        if (!nextLine())
+            throw new EOFException();
+        int min = integer();
+        expect(' ');
+        integer();
+        expect(' ');
+        int head = integer();
+        punct();
+        if (bad || pos != len)
+            throw new IOException("Bad TapeHead");
+
+        // The tape, '#' being the blank
+        if (!nextLine())
+            throw new EOFException();
+        char[] cells = Arrays.copyOf(line, len);
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == '#')
+                cells[i] = ' ';
+        }
+        m.getTape().initTape(cells);
+        m.getTape().setTapeHead(head - min);
+
+        // NumTransitions;
+        if (!nextLine())
+            throw new EOFException();
+        int count = natural();
+        punct();
+        if (bad || pos != len)
+            throw new IOException("Bad NumTransitions");
+
+        // curState read write move nextState; other lines are skipped
+        ArrayList<Transition> transitions = m.getTransitions();
+        while (transitions.size() < count) {
+            if (!nextLine())
+                throw new EOFException();
+            int from = natural();
+            expect(' ');
+            char read = anyChar();
+            expect(' ');
+            char write = anyChar();
+            expect(' ');
+            char move = anyChar();
+            expect(' ');
+            int to = integer();
+            punct();
+            if (bad || pos != len)
+                continue;
+
+            Transition.Direction direction;
+            if (move == 'L') direction = Transition.Direction.LEFT;
+            else if (move == 'R') direction = Transition.Direction.RIGHT;
+            else throw new IOException("Bad Direction"); // Old machine only accepted left and right directions.
+
+            State fromState = xTuringState(from);
+            Transition t = new Transition(xTuringState(to), fromState,
+                    xTuringChar(read), xTuringChar(write), direction);
+            fromState.getTransition().add(t);
+            transitions.add(t);
+        }
+
+        // Create our own state locations; xTuringMachine always starts in state 0
+        for (int i = 0; i < states.size(); i++) {
+            State s = states.get(i);
+            s.setX(100 + 150 * (i % 5) + 30 * (i / 5));
+            s.setY(120 + 150 * (i / 5) + 30 * (i % 2));
+            m.addState(s);
+        }
+        int start = ids.get(0);
+        if (start >= 0)
+            m.setStartState(states.get(start));
+        return m;
+    }
+
+    private State state(int id) throws IOException {
+        int i = ids.get(id);
+        if (i < 0)
+            throw new IOException("Transition to or from missing state " + id);
+        return states.get(i);
+    }
+
+    // xTuringMachine states exist once a transition names them, -1 is the only accept state
+    private State xTuringState(int id) {
+        int i = ids.get(id);
+        if (i >= 0)
+            return states.get(i);
+        State s = new State();
+        s.setName(Integer.toString(id));
+        s.setAccept(id == -1);
+        ids.put(id, states.size());
+        states.add(s);
+        return s;
+    }
+
+    // Blanks are '#' and the wildcard is '*' in xTuringMachine
+    private static char xTuringChar(char c) {
+        if (c == '#') return ' ';
+        if (c == '*') return '~';
+        return c;
+    }
+
+    private boolean nextLine() throws IOException {
+        len = 0;
+        pos = 0;
+        bad = false;
+        boolean any = false;
+        while (true) {
+            if (bufPos == bufLen) {
+                bufLen = in.read(buf, 0, buf.length);
+                bufPos = 0;
+                if (bufLen < 0) {
+                    bufLen = 0;
+                    return any;
+                }
+            }
+            char c = buf[bufPos++];
+            if (skipLF) {
+                skipLF = false;
+                if (c == '\n')
+                    continue;
+            }
+            any = true;
+            if (c == '\n')
+                return true;
+            if (c == '\r') {
+                skipLF = true;
+                return true;
+            }
+            if (len == line.length)
+                line = Arrays.copyOf(line, 2 * len);
+            line[len++] = c;
+        }
+    }
+
+    private boolean lineIs(String s) {
+        return len == s.length() && lineStartsWith(s);
+    }
+
+    private boolean lineStartsWith(String s) {
+        if (len < s.length())
+            return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (line[i] != s.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    // The field parsers below set bad instead of throwing, so a line that is
+    // not a state or transition is simply skipped
+
+    private void expect(char c) {
+        if (pos < len && line[pos] == c) pos++;
+        else bad = true;
+    }
+
+    private void skipBlanks() {
+        while (pos < len && (line[pos] == ' ' || line[pos] == '\t'))
+            pos++;
+    }
+
+    private char anyChar() {
+        if (pos < len) return line[pos++];
+        bad = true;
+        return 0;
+    }
+
+    private void punct() {
+        if (pos < len && isPunct(line[pos])) pos++;
+        else bad = true;
+    }
+
+    private static boolean isPunct(char c) {
+        return (c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`') || (c >= '{' && c <= '~');
+    }
+
+    private int integer() {
+        if (pos < len && line[pos] == '-') {
+            pos++;
+            return -natural();
+        }
+        return natural();
+    }
+
+    private int natural() {
+        int start = pos;
+        long n = 0;
+        while (pos < len && line[pos] >= '0' && line[pos] <= '9') {
+            n = 10 * n + (line[pos++] - '0');
+            if (n > Integer.MAX_VALUE) {
+                bad = true;
+                return 0;
+            }
+        }
+        if (pos == start)
+            bad = true;
+        return (int) n;
+    }
+
+    // Digits, a point and digits as Machine.toString writes them. Up to 15
+    // digits and 22 decimals the division below is exact to the last bit,
+    // the same as Double.parseDouble, which takes anything longer.
+    private double decimal() {
+        int start = pos;
+        long mantissa = 0;
+        int digits = 0, scale = 0;
+        while (pos < len && line[pos] >= '0' && line[pos] <= '9') {
+            mantissa = 10 * mantissa + (line[pos++] - '0');
+            digits++;
+        }
+        if (pos < len && line[pos] == '.') {
+            pos++;
+            while (pos < len && line[pos] >= '0' && line[pos] <= '9') {
+                mantissa = 10 * mantissa + (line[pos++] - '0');
+                digits++;
+                scale++;
+            }
+        }
+        if (digits == 0) {
+            bad = true;
+            return 0;
+        }
+        if (digits <= 15 && scale < POWERS.length)
+            return mantissa / POWERS[scale];
+        return Double.parseDouble(new String(line, start, pos - start));
+    }
+
+    // A word, true when it is "true" in any case
+    private boolean bool() {
+        int start = word();
+        int n = pos - start;
+        return n == 4
+                && Character.toLowerCase(line[start]) == 't' && Character.toLowerCase(line[start + 1]) == 'r'
+                && Character.toLowerCase(line[start + 2]) == 'u' && Character.toLowerCase(line[start + 3]) == 'e';
+    }
+
+    // A word, null if it is not a direction
+    private Transition.Direction direction() {
+        int start = word();
+        if (wordIs(start, "RIGHT")) return Transition.Direction.RIGHT;
+        if (wordIs(start, "LEFT")) return Transition.Direction.LEFT;
+        if (wordIs(start, "STAY")) return Transition.Direction.STAY;
+        return null;
+    }
+
+    private boolean wordIs(int start, String s) {
+        if (pos - start != s.length())
+            return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (line[start + i] != s.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    // Skips letters, digits and '_', returning where they started
+    private int word() {
+        int start = pos;
+        while (pos < len && (Character.isLetterOrDigit(line[pos]) || line[pos] == '_'))
+            pos++;
+        if (pos == start)
+            bad = true;
+        return start;
+    }
+
+    // File state id to dense index, open addressing on the int keys
+    private static final class IdMap {
+        private int[] keys = new int[64];
+        // Index + 1, 0 marks a free slot
+        private int[] values = new int[64];
+        private int size;
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; values[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key)
+                    return values[i] - 1;
+            }
+            return -1;
+        }
+
+        void put(int key, int value) {
+            if (2 * (size + 1) > keys.length)
+                grow();
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (values[i] != 0 && keys[i] != key)
+                i = (i + 1) & mask;
+            if (values[i] == 0)
+                size++;
+            keys[i] = key;
+            values[i] = value + 1;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys, oldValues = values;
+            keys = new int[2 * oldKeys.length];
+            values = new int[2 * oldValues.length];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != 0)
+                    put(oldKeys[i], oldValues[i] - 1);
+            }
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+// Runs a CompiledMachine k cells at a time.
+//
+// The tape is cut into blocks of k cells and every distinct block gets an
+// id. A macro step starts with the head on the left or right edge of a
+// block, runs the base machine inside the block until the head leaves it
+// (or the machine halts) and records the new block, the new state and
+// which side the head left from. Macro steps are cached by
+// (state, side, block), so once a machine has settled into a pattern each
+// macro step is one table lookup no matter how many base steps it stands
+// for. The base step count, final tape and halting state are the same as
+// running the machine with Execution.
+public class MacroExecution {
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+
+    // How a macro step ended
+    private static final int EXIT_LEFT = 0;
+    private static final int EXIT_RIGHT = 1;
+    private static final int EXIT_HALT = 2;
+    private static final int EXIT_LOOP = 3;
+
+    private final CompiledMachine machine;
+    private final int k;
+    private final Tape tape;
+
+    // Distinct blocks, block 0 is all blanks
+    private final ArrayList<char[]> blocks = new ArrayList<>();
+    private final HashMap<String, Integer> blockIds = new HashMap<>();
+
+    // Cached macro steps, an open addressed map from
+    // (state, side, block) to an index into the arrays below
+    private long[] keys = new long[1024];
+    private int[] slots = new int[1024];
+    private int cached;
+    private int[] outBlock = new int[512];
+    private int[] outState = new int[512];
+    private byte[] outExit = new byte[512];
+    private long[] outSteps = new long[512];
+    private int[] outHead = new int[512];   // head offset when halted in the block
+    private int[] outMin = new int[512];    // lowest head offset reached
+    private int[] outMax = new int[512];    // highest head offset reached
+
+    // Macro tape, block b is at macroTape[zero + b]
+    private int[] macroTape = new int[64];
+    private int zero = 32;
+    private int lowBlock;
+    private int highBlock;
+
+    private int state;
+    private long steps;
+    private long macroSteps;
+    private Execution.Outcome outcome;
+
+    public MacroExecution(CompiledMachine machine, int blockSize, Tape tape, int startState) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("Block size must be at least 1");
+        this.machine = machine;
+        this.k = blockSize;
+        this.tape = tape;
+        this.state = startState;
+        intern(blankBlock());
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public boolean isAccepted() {
+        return machine.isAccept(state);
+    }
+
+    // Base machine steps, the same count Execution would report
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getMacroSteps() {
+        return macroSteps;
+    }
+
+    // Number of distinct macro steps worked out so far
+    public int getCachedSteps() {
+        return cached;
+    }
+
+    public Execution.Outcome getOutcome() {
+        return outcome;
+    }
+
+    public String describeOutcome(RunBudget budget) {
+        if (outcome == null)
+            return "Still running";
+        switch (outcome) {
+            case STEP_LIMIT:
+                return String.format("Step limit of %d exceeded", budget.getMaxSteps());
+            case TIME_LIMIT:
+                return String.format("Time limit of %d ms exceeded after %d steps", budget.getMaxMillis(), steps);
+            case TAPE_LIMIT:
+                return String.format("Tape grew past %d cells after %d steps", budget.getMaxTapeLength(), steps);
+            case LOOPS_FOREVER:
+                return String.format("Machine loops forever inside a block of %d cells after %d steps", k, steps);
+            default:
+                return isAccepted() ? "Accepted" : "Rejected";
+        }
+    }
+
+    // Same words as Execution.getVerdict
+    public String getVerdict() {
+        if (outcome == null || outcome == Execution.Outcome.HALTED)
+            return isAccepted() ? "accept" : "reject";
+        return outcome.getLabel();
+    }
+
+    // Run until the machine halts or goes over budget, then write the
+    // resulting tape and head back into the Tape.
+    // Budgets are checked between macro steps, so a run can go past its
+    // step budget by the base steps of one macro step.
+    public Execution.Outcome run(RunBudget budget) {
+        final long startTime = System.nanoTime();
+
+        // Make sure the head is on a real cell, like the first read of Execution
+        tape.currentTapeVal();
+        final int headIndex = tape.getTapeHead();
+        final int size = tape.getSize();
+
+        // Block 0 starts at the head, so the run starts on its left edge
+        lowBlock = Math.floorDiv(-headIndex, k);
+        highBlock = Math.floorDiv(size - 1 - headIndex, k);
+        // Room for every block of the input, with as much again to grow into
+        int used = highBlock - lowBlock + 1;
+        macroTape = new int[Math.max(64, 2 * used)];
+        zero = (macroTape.length - used) / 2 - lowBlock;
+        for (int b = lowBlock; b <= highBlock; b++) {
+            char[] content = new char[k];
+            for (int i = 0; i < k; i++) {
+                int index = headIndex + b * k + i;
+                content[i] = (index >= 0 && index < size) ? tape.charAt(index) : ' ';
+            }
+            setBlock(b, intern(content));
+        }
+
+        int block = 0;
+        int side = LEFT;
+        long minHead = 0;
+        long maxHead = 0;
+        int haltOffset = 0;
+        int countdown = Execution.CHECK_INTERVAL;
+
+        while (true) {
+            if (steps >= budget.getMaxSteps()) {
+                // Out of steps, but a machine with nothing left to do still halted
+                int edge = (side == LEFT) ? 0 : k - 1;
+                char read = blocks.get(getBlock(block))[edge];
+                if (machine.transitionFor(state, read) == CompiledMachine.NONE) {
+                    haltOffset = edge;
+                    outcome = Execution.Outcome.HALTED;
+                } else {
+                    outcome = Execution.Outcome.STEP_LIMIT;
+                }
+                break;
+            }
+            if (--countdown == 0) {
+                countdown = Execution.CHECK_INTERVAL;
+                if ((long) (highBlock - lowBlock + 1) * k > budget.getMaxTapeLength()) {
+                    outcome = Execution.Outcome.TAPE_LIMIT;
+                    break;
+                }
+                if (System.nanoTime() - startTime > budget.maxNanos()) {
+                    outcome = Execution.Outcome.TIME_LIMIT;
+                    break;
+                }
+            }
+
+            int slot = lookup(state, side, getBlock(block));
+            long blockStart = (long) block * k;
+            minHead = Math.min(minHead, blockStart + outMin[slot]);
+            maxHead = Math.max(maxHead, blockStart + outMax[slot]);
+            setBlock(block, outBlock[slot]);
+            state = outState[slot];
+            steps += outSteps[slot];
+            macroSteps++;
+
+            int exit = outExit[slot];
+            if (exit == EXIT_LEFT) {
+                block--;
+                side = RIGHT;
+            } else if (exit == EXIT_RIGHT) {
+                block++;
+                side = LEFT;
+            } else {
+                haltOffset = outHead[slot];
+                outcome = (exit == EXIT_HALT) ? Execution.Outcome.HALTED : Execution.Outcome.LOOPS_FOREVER;
+                break;
+            }
+        }
+
+        long head;
+        if (outcome == Execution.Outcome.HALTED || outcome == Execution.Outcome.LOOPS_FOREVER)
+            head = (long) block * k + haltOffset;
+        else
+            head = (long) block * k + (side == LEFT ? 0 : k - 1);
+        writeBack(headIndex, size, head, minHead, maxHead);
+        return outcome;
+    }
+
+    // Rebuild the base tape over the same cells Execution would have
+    // touched: the original tape plus everywhere the head has been
+    private void writeBack(int headIndex, int size, long head, long minHead, long maxHead) {
+        long from = Math.min(-headIndex, minHead);
+        long to = Math.max(size - 1 - headIndex, maxHead);
+        char[] cells = new char[(int) (to - from + 1)];
+        for (long p = from; p <= to; p++) {
+            int b = (int) Math.floorDiv(p, (long) k);
+            int off = (int) Math.floorMod(p, (long) k);
+            cells[(int) (p - from)] = (b >= lowBlock && b <= highBlock) ? blocks.get(getBlock(b))[off] : ' ';
+        }
+        tape.initTape(cells);
+        tape.setTapeHead((int) (head - from));
+    }
+
+    // Find or work out the macro step for (state, side, block)
+    private int lookup(int state, int side, int block) {
+        long key = ((long) state << 33) | ((long) side << 32) | (block & 0xFFFFFFFFL);
+        int mask = keys.length - 1;
+        int i = (int) (mix(key) & mask);
+        while (slots[i] != 0) {
+            if (keys[i] == key)
+                return slots[i] - 1;
+            i = (i + 1) & mask;
+        }
+
+        int slot = simulate(state, side, block);
+        keys[i] = key;
+        slots[i] = slot + 1;
+        if (cached * 2 > keys.length)
+            rehash();
+        return slot;
+    }
+
+    // Run the base machine inside one block
+    private int simulate(int state, int side, int block) {
+        char[] cells = blocks.get(block).clone();
+        int pos = (side == LEFT) ? 0 : k - 1;
+        int min = pos;
+        int max = pos;
+        long count = 0;
+        int exit;
+
+        // A block with n states has at most n * k * symbols^k configurations,
+        // past a generous number of steps start remembering them to catch a
+        // machine that never leaves the block
+        long remember = 64L * k * machine.getStateCount();
+        HashSet<String> seen = null;
+
+        while (true) {
+            int t = machine.transitionFor(state, cells[pos]);
+            if (t == CompiledMachine.NONE) {
+                exit = EXIT_HALT;
+                break;
+            }
+            int write = machine.writeChar(t);
+            if (write != CompiledMachine.NONE)
+                cells[pos] = (char) write;
+            pos += machine.move(t);
+            state = machine.nextState(t);
+            count++;
+
+            min = Math.min(min, pos);
+            max = Math.max(max, pos);
+            if (pos < 0) {
+                exit = EXIT_LEFT;
+                break;
+            }
+            if (pos >= k) {
+                exit = EXIT_RIGHT;
+                break;
+            }
+
+            if (count > remember) {
+                if (seen == null)
+                    seen = new HashSet<>();
+                if (!seen.add(state + ":" + pos + ":" + new String(cells))) {
+                    exit = EXIT_LOOP;
+                    break;
+                }
+            }
+        }
+
+        int slot = cached++;
+        if (slot == outBlock.length)
+            growSteps();
+        outBlock[slot] = intern(cells);
+        outState[slot] = state;
+        outExit[slot] = (byte) exit;
+        outSteps[slot] = count;
+        outHead[slot] = pos;
+        outMin[slot] = min;
+        outMax[slot] = max;
+        return slot;
+    }
+
+    private int intern(char[] content) {
+        String key = new String(content);
+        Integer id = blockIds.get(key);
+        if (id == null) {
+            id = blocks.size();
+            blocks.add(content);
+            blockIds.put(key, id);
+        }
+        return id;
+    }
+
+    private char[] blankBlock() {
+        char[] blank = new char[k];
+        java.util.Arrays.fill(blank, ' ');
+        return blank;
+    }
+
+    // Blocks the head has never reached are blank
+    private int getBlock(int b) {
+        if (b < lowBlock || b > highBlock)
+            return 0;
+        return macroTape[zero + b];
+    }
+
+    private void setBlock(int b, int id) {
+        while (zero + b < 0 || zero + b >= macroTape.length)
+            growTape();
+        for (int i = highBlock + 1; i < b; i++)
+            macroTape[zero + i] = 0;
+        for (int i = lowBlock - 1; i > b; i--)
+            macroTape[zero + i] = 0;
+        macroTape[zero + b] = id;
+        lowBlock = Math.min(lowBlock, b);
+        highBlock = Math.max(highBlock, b);
+    }
+
+    private void growTape() {
+        int used = highBlock - lowBlock + 1;
+        int[] bigger = new int[macroTape.length * 2];
+        int newZero = zero + macroTape.length / 2;
+        if (used > 0)
+            System.arraycopy(macroTape, zero + lowBlock, bigger, newZero + lowBlock, used);
+        macroTape = bigger;
+        zero = newZero;
+    }
+
+    private void growSteps() {
+        int n = outBlock.length * 2;
+        outBlock = java.util.Arrays.copyOf(outBlock, n);
+        outState = java.util.Arrays.copyOf(outState, n);
+        outExit = java.util.Arrays.copyOf(outExit, n);
+        outSteps = java.util.Arrays.copyOf(outSteps, n);
+        outHead = java.util.Arrays.copyOf(outHead, n);
+        outMin = java.util.Arrays.copyOf(outMin, n);
+        outMax = java.util.Arrays.copyOf(outMax, n);
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[oldKeys.length * 2];
+        slots = new int[oldSlots.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldSlots[j] == 0)
+                continue;
+            int i = (int) (mix(oldKeys[j]) & mask);
+            while (slots[i] != 0)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            slots[i] = oldSlots[j];
+        }
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
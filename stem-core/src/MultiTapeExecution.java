@@ -0,0 +1,170 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+// A single run of a CompiledMultiTape over its k tapes, the k-tape
+// counterpart of Execution. Budgets work the same way, the tape budget
+// applying to the longest tape.
+public class MultiTapeExecution {
+    private final CompiledMultiTape machine;
+    private final Tape[] tapes;
+    private int state;
+    private long steps;
+    private Execution.Outcome outcome;
+
+    public MultiTapeExecution(CompiledMultiTape machine, Tape[] tapes, int startState) {
+        if (tapes.length != machine.getTapeCount())
+            throw new IllegalArgumentException(String.format(
+                    "Machine has %d tapes, given %d", machine.getTapeCount(), tapes.length));
+        this.machine = machine;
+        this.tapes = tapes;
+        this.state = startState;
+    }
+
+    // Run over the tapes of m
+    public MultiTapeExecution(CompiledMultiTape machine, Machine m, int startState) {
+        this(machine, tapesOf(m), startState);
+    }
+
+    private static Tape[] tapesOf(Machine m) {
+        Tape[] tapes = new Tape[m.getTapeCount()];
+        for (int i = 0; i < tapes.length; i++)
+            tapes[i] = m.getTape(i);
+        return tapes;
+    }
+
+    public CompiledMultiTape getMachine() {
+        return machine;
+    }
+
+    public Tape getTape(int i) {
+        return tapes[i];
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public boolean isAccepted() {
+        return machine.isAccept(state);
+    }
+
+    // Transition the next step would take, or NONE if the machine has halted
+    public int peek() {
+        return machine.transitionFor(state, tapes);
+    }
+
+    // Take one step. Returns the transition id taken or NONE if halted.
+    public int step() {
+        int t = machine.transitionFor(state, tapes);
+        if (t != CompiledMultiTape.NONE)
+            take(t);
+        return t;
+    }
+
+    private void take(int t) {
+        final CompiledMultiTape m = machine;
+        for (int tape = 0; tape < tapes.length; tape++) {
+            int write = m.writeChar(t, tape);
+            if (write != CompiledMultiTape.NONE)
+                tapes[tape].setTape((char) write);
+            int move = m.move(t, tape);
+            if (move < 0)
+                tapes[tape].left();
+            else if (move > 0)
+                tapes[tape].right();
+        }
+        state = m.nextState(t);
+        steps++;
+    }
+
+    // Run until the machine halts or goes over budget, checking the time
+    // and tape budgets every Execution.CHECK_INTERVAL steps like Execution.run
+    public Execution.Outcome run(RunBudget budget) {
+        final long startTime = System.nanoTime();
+        outcome = null;
+        while (true) {
+            long allowed = budget.getMaxSteps() - steps;
+            if (allowed <= 0) {
+                outcome = (peek() == CompiledMultiTape.NONE) ? Execution.Outcome.HALTED : Execution.Outcome.STEP_LIMIT;
+                return outcome;
+            }
+
+            int countdown = (int) Math.min(Execution.CHECK_INTERVAL, allowed);
+            int t;
+            while (countdown != 0 && (t = machine.transitionFor(state, tapes)) != CompiledMultiTape.NONE) {
+                take(t);
+                countdown--;
+            }
+            if (countdown != 0) {
+                outcome = Execution.Outcome.HALTED;
+                return outcome;
+            }
+            if (overBudget(budget, startTime))
+                return outcome;
+        }
+    }
+
+    // Check the step, tape and time budgets of a run started at startTime
+    // (System.nanoTime()), setting the outcome if either is used up
+    public boolean overBudget(RunBudget budget, long startTime) {
+        if (steps >= budget.getMaxSteps() && peek() != CompiledMultiTape.NONE)
+            outcome = Execution.Outcome.STEP_LIMIT;
+        else if (getLongestTape() > budget.getMaxTapeLength())
+            outcome = Execution.Outcome.TAPE_LIMIT;
+        else if (System.nanoTime() - startTime > budget.maxNanos())
+            outcome = Execution.Outcome.TIME_LIMIT;
+        else
+            return false;
+        return true;
+    }
+
+    public int getLongestTape() {
+        int longest = 0;
+        for (Tape tape : tapes)
+            longest = Math.max(longest, tape.getSize());
+        return longest;
+    }
+
+    public Execution.Outcome getOutcome() {
+        return outcome;
+    }
+
+    // Short description of why a run stopped, for fail reasons and reports
+    public String describeOutcome(RunBudget budget) {
+        if (outcome == null)
+            return "Still running";
+        switch (outcome) {
+            case STEP_LIMIT:
+                return String.format("Step limit of %d exceeded", budget.getMaxSteps());
+            case TIME_LIMIT:
+                return String.format("Time limit of %d ms exceeded after %d steps", budget.getMaxMillis(), steps);
+            case TAPE_LIMIT:
+                return String.format("A tape grew past %d cells after %d steps", budget.getMaxTapeLength(), steps);
+            default:
+                return isAccepted() ? "Accepted" : "Rejected";
+        }
+    }
+
+    // One word answer for reports: accept, reject or the budget that ran out
+    public String getVerdict() {
+        if (outcome == null || outcome == Execution.Outcome.HALTED)
+            return isAccepted() ? "accept" : "reject";
+        return outcome.getLabel();
+    }
+}
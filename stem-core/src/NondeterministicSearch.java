@@ -0,0 +1,364 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Breadth-first search over every branch of a nondeterministic machine.
+// Where a state has several transitions for the character it reads, each
+// one starts a branch ('~' still only covers characters the state has no
+// transition for). A branch accepts by halting in an accept state.
+//
+// Each level of the search is split across a ForkJoinPool so work stealing
+// evens out branches of very different sizes. Configurations already
+// reached on any branch are dropped, and the search stops as soon as any
+// branch accepts, so the accepting path found is one of the shortest.
+public class NondeterministicSearch {
+    // Configurations expanded by one fork/join leaf before it stops splitting
+    private static final int LEAF_SIZE = 64;
+
+    // Configurations between checks of the clock in a leaf
+    private static final int TIME_CHECK = 1024;
+
+    // Rough size of a configuration and its entry in the seen set, less the cells
+    private static final int OVERHEAD = 112;
+
+    private final CompiledMachine machine;
+    private final ForkJoinPool pool;
+
+    private final Set<Configuration> seen = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Configuration> accepted = new AtomicReference<>();
+    private final AtomicReference<Execution.Outcome> stopped = new AtomicReference<>();
+    private final AtomicLong memory = new AtomicLong();
+    private final AtomicLong frontier = new AtomicLong();
+
+    private RunBudget budget;
+    private long deadline;
+    private long depth;
+    private Execution.Outcome outcome;
+
+    public NondeterministicSearch(CompiledMachine machine) {
+        this(machine, ForkJoinPool.commonPool());
+    }
+
+    public NondeterministicSearch(CompiledMachine machine, ForkJoinPool pool) {
+        this.machine = machine;
+        this.pool = pool;
+    }
+
+    // Explore from startState with tape as input. The tape itself is not
+    // changed, see replay(). Throws InterruptedException if the calling
+    // thread is interrupted between levels.
+    public Execution.Outcome run(int startState, Tape tape, RunBudget budget) throws InterruptedException {
+        if (startState == CompiledMachine.NONE)
+            throw new IllegalStateException("Machine has no start state!");
+        this.budget = budget;
+        long started = System.nanoTime();
+        deadline = (budget.maxNanos() == Long.MAX_VALUE) ? Long.MAX_VALUE : started + budget.maxNanos();
+        seen.clear();
+        accepted.set(null);
+        stopped.set(null);
+        memory.set(0);
+        depth = 0;
+
+        Configuration start = Configuration.of(startState, tape.toCharArray(), tape.getTapeHead());
+        seen.add(start);
+        memory.addAndGet(start.size());
+        List<Configuration> level = Collections.singletonList(start);
+
+        while (!level.isEmpty()) {
+            // The last level allowed is only checked for halted branches
+            boolean last = depth >= budget.getMaxSteps();
+            frontier.set(0);
+            level = pool.invoke(new Expand(level, 0, level.size(), last));
+
+            if (accepted.get() != null) {
+                outcome = Execution.Outcome.HALTED;
+                return outcome;
+            }
+            if (stopped.get() != null) {
+                outcome = stopped.get();
+                return outcome;
+            }
+            if (last && !level.isEmpty()) {
+                outcome = Execution.Outcome.STEP_LIMIT;
+                return outcome;
+            }
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (!level.isEmpty())
+                depth++;
+        }
+        outcome = Execution.Outcome.HALTED;
+        return outcome;
+    }
+
+    private class Expand extends RecursiveTask<List<Configuration>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Configuration> level;
+        private final int from;
+        private final int to;
+        private final boolean last;
+
+        Expand(List<Configuration> level, int from, int to, boolean last) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.last = last;
+        }
+
+        @Override
+        protected List<Configuration> compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                Expand left = new Expand(level, from, mid, last);
+                left.fork();
+                List<Configuration> right = new Expand(level, mid, to, last).compute();
+                List<Configuration> next = left.join();
+                if (next.isEmpty())
+                    return right;
+                next.addAll(right);
+                return next;
+            }
+
+            ArrayList<Configuration> next = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                if (accepted.get() != null || stopped.get() != null)
+                    break;
+                if ((i - from) % TIME_CHECK == 0 && System.nanoTime() > deadline) {
+                    stopped.compareAndSet(null, Execution.Outcome.TIME_LIMIT);
+                    break;
+                }
+
+                Configuration c = level.get(i);
+                int[] choices = machine.transitionsFor(c.state, c.read());
+                if (choices.length == 0) {
+                    if (machine.isAccept(c.state))
+                        accepted.compareAndSet(null, c);
+                    continue;
+                }
+                if (last) {
+                    // Still running, kept only to say so once the whole
+                    // level has been looked over for a halted branch
+                    next.add(c);
+                    continue;
+                }
+                for (int t : choices) {
+                    Configuration child = c.take(machine, t);
+                    if (child.span() > budget.getMaxTapeLength()) {
+                        stopped.compareAndSet(null, Execution.Outcome.TAPE_LIMIT);
+                        break;
+                    }
+                    if (!seen.add(child))
+                        continue;
+                    if (memory.addAndGet(child.size()) > budget.getMaxMemory()) {
+                        stopped.compareAndSet(null, Execution.Outcome.MEMORY_LIMIT);
+                        break;
+                    }
+                    if (frontier.incrementAndGet() > budget.getMaxFrontier()) {
+                        stopped.compareAndSet(null, Execution.Outcome.FRONTIER_LIMIT);
+                        break;
+                    }
+                    next.add(child);
+                }
+            }
+            return next;
+        }
+    }
+
+    public Execution.Outcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isAccepted() {
+        return accepted.get() != null;
+    }
+
+    // Steps on the longest branch explored, which is the length of the
+    // accepting path if there is one
+    public long getDepth() {
+        return depth;
+    }
+
+    // Distinct configurations reached on all branches
+    public int getConfigurations() {
+        return seen.size();
+    }
+
+    // Transition ids from the start to the accepting configuration, empty if none accepted
+    public int[] getAcceptingPath() {
+        Configuration c = accepted.get();
+        if (c == null)
+            return new int[0];
+        int[] path = new int[(int) c.depth];
+        for (; c.parent != null; c = c.parent)
+            path[(int) c.depth - 1] = c.transition;
+        return path;
+    }
+
+    // State the accepting branch halted in, or NONE
+    public int getAcceptingState() {
+        Configuration c = accepted.get();
+        return (c == null) ? CompiledMachine.NONE : c.state;
+    }
+
+    // Take the accepting path on tape, which should hold the input the
+    // search was run on, leaving it as the accepting branch did
+    public void replay(Tape tape) {
+        for (int t : getAcceptingPath()) {
+            int write = machine.writeChar(t);
+            if (write != CompiledMachine.NONE)
+                tape.setTape((char) write);
+            int move = machine.move(t);
+            if (move < 0)
+                tape.left();
+            else if (move > 0)
+                tape.right();
+        }
+    }
+
+    // One line per step of the accepting path, for a person to read
+    public List<String> describePath() {
+        ArrayList<String> lines = new ArrayList<>();
+        int[] path = getAcceptingPath();
+        for (int i = 0; i < path.length; i++) {
+            Transition t = machine.getTransition(path[i]);
+            lines.add(String.format("%d: %s reads '%c', writes '%c' moves %s to %s",
+                    i + 1, t.getFromState().getName(), t.getReadChar(), t.getWriteChar(),
+                    t.getMoveDirection(), t.getToState().getName()));
+        }
+        return lines;
+    }
+
+    // Short description of why the search stopped, for fail reasons and reports
+    public String describeOutcome() {
+        if (outcome == null)
+            return "Still running";
+        switch (outcome) {
+            case STEP_LIMIT:
+                return String.format("No branch halted within %d steps", budget.getMaxSteps());
+            case TIME_LIMIT:
+                return String.format("Time limit of %d ms exceeded after %d levels", budget.getMaxMillis(), depth);
+            case TAPE_LIMIT:
+                return String.format("A branch's tape grew past %d cells after %d steps", budget.getMaxTapeLength(), depth);
+            case FRONTIER_LIMIT:
+                return String.format("More than %d configurations to explore after %d steps", budget.getMaxFrontier(), depth);
+            case MEMORY_LIMIT:
+                return String.format("Configurations took more than %d MB after %d steps", budget.getMaxMemory() >> 20, depth);
+            default:
+                return isAccepted() ? "Accepted" : "No branch accepts";
+        }
+    }
+
+    // One word answer for reports: accept, reject or the limit that was hit
+    public String getVerdict() {
+        if (outcome == null || outcome == Execution.Outcome.HALTED)
+            return isAccepted() ? "accept" : "reject";
+        return outcome.getLabel();
+    }
+
+    // A state, head and tape reached on some branch. Blanks at either end of
+    // the tape are trimmed off so configurations that differ only in how far
+    // the tape has grown are equal, and the head may be off either end.
+    // Cells are never written after construction so children that do not
+    // write share their parent's.
+    private static final class Configuration {
+        final int state;
+        final char[] cells;
+        final int head;
+        final Configuration parent;
+        final int transition;
+        final long depth;
+        private final int hash;
+
+        private Configuration(int state, char[] cells, int head, Configuration parent, int transition) {
+            this.state = state;
+            this.cells = cells;
+            this.head = head;
+            this.parent = parent;
+            this.transition = transition;
+            this.depth = (parent == null) ? 0 : parent.depth + 1;
+            this.hash = (31 * state + head) * 31 + Arrays.hashCode(cells);
+        }
+
+        static Configuration of(int state, char[] tape, int head) {
+            return trimmed(state, tape, head, null, CompiledMachine.NONE);
+        }
+
+        private static Configuration trimmed(int state, char[] tape, int head, Configuration parent, int transition) {
+            int first = 0;
+            int end = tape.length;
+            while (first < end && tape[first] == ' ')
+                first++;
+            while (end > first && tape[end - 1] == ' ')
+                end--;
+            if (first == end)
+                return new Configuration(state, new char[0], 0, parent, transition);
+            char[] cells = (first == 0 && end == tape.length) ? tape : Arrays.copyOfRange(tape, first, end);
+            return new Configuration(state, cells, head - first, parent, transition);
+        }
+
+        char read() {
+            return (head < 0 || head >= cells.length) ? ' ' : cells[head];
+        }
+
+        Configuration take(CompiledMachine m, int t) {
+            int move = m.move(t);
+            int write = m.writeChar(t);
+            if (write == CompiledMachine.NONE || write == read())
+                return new Configuration(m.nextState(t), cells, head + move, this, t);
+
+            // Grow the tape out to the head if it is off the end, then write
+            int low = Math.min(0, head);
+            int high = Math.max(cells.length, head + 1);
+            char[] tape = new char[high - low];
+            Arrays.fill(tape, ' ');
+            System.arraycopy(cells, 0, tape, -low, cells.length);
+            tape[head - low] = (char) write;
+            return trimmed(m.nextState(t), tape, head - low + move, this, t);
+        }
+
+        // Cells from the leftmost of the tape and head to the rightmost
+        long span() {
+            return (long) Math.max(cells.length, head + 1) - Math.min(0, head);
+        }
+
+        long size() {
+            return OVERHEAD + 2L * cells.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Configuration))
+                return false;
+            Configuration c = (Configuration) o;
+            return hash == c.hash && state == c.state && head == c.head && Arrays.equals(cells, c.cells);
+        }
+    }
+}
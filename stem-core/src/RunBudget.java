@@ -0,0 +1,90 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+// Limits on a single run of a machine. A run that goes over any of them
+// stops with a budget outcome instead of running until someone notices.
+public class RunBudget {
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    // Enough for any sensible input while still keeping the tape in memory
+    public static final long DEFAULT_MAX_TAPE = 10000000;
+
+    // Exploring every branch of a nondeterministic machine keeps each
+    // configuration it reaches, so it also stops before filling the heap
+    public static final long DEFAULT_MAX_FRONTIER = 1 << 22;
+    public static final long DEFAULT_MAX_MEMORY = Runtime.getRuntime().maxMemory() / 2;
+
+    private long maxSteps = UNLIMITED;
+    private long maxMillis = UNLIMITED;
+    private long maxTapeLength = DEFAULT_MAX_TAPE;
+    private long maxFrontier = DEFAULT_MAX_FRONTIER;
+    private long maxMemory = DEFAULT_MAX_MEMORY;
+
+    public RunBudget() { }
+
+    public RunBudget(long maxSteps, long maxMillis, long maxTapeLength) {
+        this.maxSteps = maxSteps;
+        this.maxMillis = maxMillis;
+        this.maxTapeLength = maxTapeLength;
+    }
+
+    public long getMaxSteps() {
+        return maxSteps;
+    }
+
+    public void setMaxSteps(long maxSteps) {
+        this.maxSteps = maxSteps;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public void setMaxMillis(long maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+
+    public long getMaxTapeLength() {
+        return maxTapeLength;
+    }
+
+    public void setMaxTapeLength(long maxTapeLength) {
+        this.maxTapeLength = maxTapeLength;
+    }
+
+    // Most configurations one level of a nondeterministic search may hold
+    public long getMaxFrontier() {
+        return maxFrontier;
+    }
+
+    public void setMaxFrontier(long maxFrontier) {
+        this.maxFrontier = maxFrontier;
+    }
+
+    // Rough bytes a nondeterministic search may spend on configurations
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    public void setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    long maxNanos() {
+        if (maxMillis >= Long.MAX_VALUE / 1000000)
+            return Long.MAX_VALUE;
+        return maxMillis * 1000000;
+    }
+}
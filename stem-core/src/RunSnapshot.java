@@ -0,0 +1,74 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+// What the editor shows of a running machine at one moment: the current
+// state, the head and the cells around it. Built on the thread running the
+// machine and never changed afterwards, so the FX thread can draw it while
+// the machine keeps going.
+public final class RunSnapshot {
+    private final State state;
+    private final long steps;
+    private final int head;
+    private final int windowStart;
+    private final char[] window;
+
+    private RunSnapshot(State state, long steps, int head, int windowStart, char[] window) {
+        this.state = state;
+        this.steps = steps;
+        this.head = head;
+        this.windowStart = windowStart;
+        this.window = window;
+    }
+
+    // Copy width cells of tape centred on the head, blanks past either end
+    public static RunSnapshot of(State state, Tape tape, long steps, int width) {
+        int head = tape.getTapeHead();
+        int start = head - width / 2;
+        char[] window = new char[Math.max(width, 1)];
+        int size = tape.getSize();
+        for (int i = 0; i < window.length; i++) {
+            int index = start + i;
+            window[i] = (index >= 0 && index < size) ? tape.charAt(index) : ' ';
+        }
+        return new RunSnapshot(state, steps, head, start, window);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public int getHead() {
+        return head;
+    }
+
+    // Tape index of the first cell in the window
+    public int getWindowStart() {
+        return windowStart;
+    }
+
+    public int getWindowWidth() {
+        return window.length;
+    }
+
+    // Cell at a tape index, blank outside the window
+    public char cellAt(int index) {
+        int i = index - windowStart;
+        return (i >= 0 && i < window.length) ? window[i] : ' ';
+    }
+}
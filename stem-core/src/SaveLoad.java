@@ -0,0 +1,94 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+// Reads and writes machine files. Picking the file is up to the caller,
+// see MachineFileChooser in the editor. Text is read by MachineParser and
+// the binary format by BinaryMachineFile; a SaveLoad keeps nothing
+// between files, so several threads can load through one at the same time.
+public class SaveLoad {
+    /* Writes m to file in the STEM format, replacing whatever was there. */
+    public void saveFile(File file, Machine m) throws IOException {
+        saveTapeFiles(file, m);
+        File tmp = tempFile(file);
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(tmp))) {
+            /* Calls the machine's toString(). */
+            bw.write(m.toString());
+        }
+        replace(tmp, file);
+    }
+
+    /* Writes m to file in the binary format, see BinaryMachineFile. */
+    public void saveBinaryFile(File file, Machine m) throws IOException {
+        saveTapeFiles(file, m);
+        File tmp = tempFile(file);
+        BinaryMachineFile.write(tmp, m);
+        replace(tmp, file);
+    }
+
+    /* Machines are written next to the file and moved over it, so a crash mid-save leaves the old one whole. */
+    private static File tempFile(File file) {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    static void replace(File tmp, File file) throws IOException {
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /* Tapes with a tape file of their own are written there, next to file for relative paths.
+       They go first and are all checked before any is written, so if one cannot be saved
+       nothing on disk changes. */
+    private static void saveTapeFiles(File file, Machine m) throws IOException {
+        for (int i = 0; i < m.getTapeCount(); i++) {
+            if (m.getTapeFile(i) != null)
+                TapeFile.check(m.getTape(i));
+        }
+        for (int i = 0; i < m.getTapeCount(); i++) {
+            if (m.getTapeFile(i) != null)
+                TapeFile.save(TapeFile.resolve(directory(file), m.getTapeFile(i)), m.getTape(i));
+        }
+    }
+
+    static File directory(File file) {
+        return file.getAbsoluteFile().getParentFile();
+    }
+
+    /* Reads a binary, STEM or xTuringMachine file, returns null if the header is not recognised. */
+    public Machine loadFile(File file) throws IOException {
+        if (BinaryMachineFile.isBinary(file))
+            return BinaryMachineFile.read(file);
+        try (Reader in = new FileReader(file)) {
+            return new MachineParser(in, directory(file)).parse();
+        }
+    }
+
+    /* The rest of an xTuringMachine file whose header line br has already read. */
+    public Machine loadxTuring(BufferedReader br, String header) throws IOException {
+        return new MachineParser(br, null).xTuring();
+    }
+
+    /* The rest of a STEM file whose header line br has already read. */
+    public Machine loadSTEM(BufferedReader br, String header) throws IOException {
+        return new MachineParser(br, null).stem();
+    }
+}
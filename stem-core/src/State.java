@@ -13,29 +13,30 @@
  *     GNU General Public License for more details.
  */
 
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import javafx.scene.text.Text;
-
 import java.util.ArrayList;
 
+// A state of a machine. Nothing here depends on how the state is drawn,
+// the editor keeps its circle and label as the state's view.
 class State {
 	private String name;
-	private Text label;
 	private double x;
 	private double y;
 	private boolean start;
 	private boolean accept;
 	private boolean debug;
-	private Color baseColor;
-	private Color currColor;
-	private Circle circle;
-	private Circle acceptCircle;
 	private ArrayList<Transition> transition;
 
+	// Fill colour, light goldenrod yellow unless the user picks another
+	private double red = 250 / 255.0;
+	private double green = 250 / 255.0;
+	private double blue = 210 / 255.0;
+	private double opacity = 1;
+
+	// Whatever the editor draws this state with, never looked at here
+	private Object view;
+
 	public State(){
 		transition = new ArrayList<>();
-		this.baseColor = Color.LIGHTGOLDENRODYELLOW;
 	}
 
 	public State(String name, double x, double y){
@@ -45,16 +46,6 @@ class State {
 		transition = new ArrayList<>();
 	}
 
-	public State(String name, double x, double y, Text label, Circle circle){
-		this.name = name;
-		this.x = x;
-		this.y = y;
-		this.label = label;
-		this.circle = circle;
-		transition = new ArrayList<>();
-		this.baseColor = Color.LIGHTGOLDENRODYELLOW;
-	}
-
 	public String getName() {
 		return name;
 	}
@@ -63,14 +54,6 @@ class State {
 		this.name = name;
 	}
 	
-	public Text getLabel() {
-		return label;
-	}
-	
-	public void setLabel(Text label) {
-		this.label = label;
-	}
-	
 	public double getX(){
 		return x;
 	}
@@ -103,22 +86,6 @@ class State {
 		this.accept = accept;
 	}
 	
-	public Circle getCircle(){
-		return circle;
-	}
-	
-	public void setCircle(Circle circle){
-		this.circle = circle;
-	}
-
-	public Circle getAcceptCircle() {
-		return acceptCircle;
-	}
-
-	public void setAcceptCircle(Circle acceptCircle) {
-		this.acceptCircle = acceptCircle;
-	}
-
 	public ArrayList<Transition> getTransition() {
 		return transition;
 	}
@@ -131,15 +98,34 @@ class State {
 
 	public boolean isDebug() {return debug;}
 
-	public void setColor(Color c){
-		this.baseColor = c;
+	public void setColor(double red, double green, double blue, double opacity){
+		this.red = red;
+		this.green = green;
+		this.blue = blue;
+		this.opacity = opacity;
+	}
+
+	public double getRed(){
+		return red;
+	}
+
+	public double getGreen(){
+		return green;
+	}
+
+	public double getBlue(){
+		return blue;
+	}
+
+	public double getOpacity(){
+		return opacity;
 	}
 
-	public Color getBaseColor(){
-		return baseColor;
+	public Object getView(){
+		return view;
 	}
 
-	public Color getCurrColor(){
-		return currColor;
+	public void setView(Object view){
+		this.view = view;
 	}
 }
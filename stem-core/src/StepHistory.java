@@ -0,0 +1,240 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Lets a run be stepped backwards and jumped to any earlier step without
+// keeping every step forever.
+//
+// Every interval steps a snapshot of the tape and the state are saved as
+// a checkpoint. A snapshot shares every chunk of cells the run has not
+// written since, so a checkpoint costs the cells changed, not the whole
+// tape. Steps since the last checkpoint are kept as small undo records so
+// stepping back one at a time is cheap, up to the latest MAX_UNDO of them.
+// Going back further restores the nearest checkpoint and runs forward
+// again, which gives the same result because machines are deterministic.
+// An undo record keeps the ends of the tape before its step, so stepping
+// back over a step that grew the tape takes the new cell off again. Once
+// there are MAX_CHECKPOINTS checkpoints every other one is dropped and the
+// interval doubles, so memory stays bounded however long the session runs.
+public class StepHistory implements StepRecorder {
+    public static final int DEFAULT_INTERVAL = 1024;
+    static final int MAX_CHECKPOINTS = 128;
+    static final int MAX_UNDO = 1 << 16;
+
+    private final Execution execution;
+    private final CompiledMachine machine;
+    private final Tape tape;
+    private int interval;
+
+    private final ArrayList<Checkpoint> checkpoints = new ArrayList<>();
+
+    // Undo records since the last checkpoint, one per record() call
+    private int undoCount;
+    private int[] undoState;
+    private int[] undoTransition;
+    private char[] undoRead;
+    private int[] undoPosition;
+    private int[] undoRepeat;
+    private int[] undoLow;
+    private int[] undoHigh;
+
+    // Positions of the first and last cell as of the last record() call.
+    private int low;
+    private int high;
+
+    public StepHistory(Execution execution) {
+        this(execution, DEFAULT_INTERVAL);
+    }
+
+    public StepHistory(Execution execution, int interval) {
+        if (interval < 1)
+            throw new IllegalArgumentException("Checkpoint interval must be at least 1");
+        this.execution = execution;
+        this.machine = execution.getMachine();
+        this.tape = execution.getTape();
+        this.interval = interval;
+        allocateUndo(16);
+        readEnds();
+        execution.setTrace(this);
+        checkpoint();
+    }
+
+    public Execution getExecution() {
+        return execution;
+    }
+
+    public long getStep() {
+        return execution.getSteps();
+    }
+
+    // Steps between checkpoints, doubles as a session gets long
+    public int getInterval() {
+        return interval;
+    }
+
+    // Take one step. Returns the transition taken or NONE if the machine halted.
+    public int forward() {
+        int t = execution.step();
+        if (t != CompiledMachine.NONE && execution.getSteps() % interval == 0)
+            checkpoint();
+        return t;
+    }
+
+    // Undo the last step. Returns false at step 0.
+    public boolean back() {
+        long step = execution.getSteps();
+        if (step == 0)
+            return false;
+        if (undoCount == 0) {
+            seek(step - 1);
+            return true;
+        }
+
+        int i = undoCount - 1;
+        int move = machine.move(undoTransition[i]);
+        int last = undoPosition[i] + move * (undoRepeat[i] - 1);
+        tape.setTapeHead(last + tape.getOrigin());
+        tape.setTape(undoRead[i]);
+        low = undoLow[i];
+        high = undoHigh[i];
+        if (tape.getOrigin() != -low || tape.getSize() != high - low + 1)
+            tape.shrink(-low, high - low + 1);
+        execution.restore(undoState[i], step - 1);
+        if (--undoRepeat[i] == 0)
+            undoCount--;
+        tape.notifyChanged();
+        return true;
+    }
+
+    // Go to step n, backwards or forwards. Returns false if the machine
+    // halts before reaching it, leaving the run at the halting step.
+    public boolean seek(long n) {
+        if (n < 0)
+            throw new IllegalArgumentException("No step " + n);
+        if (n < execution.getSteps()) {
+            // Latest checkpoint at or before n, the ones after it are taken again on the way
+            int c = checkpoints.size() - 1;
+            while (checkpoints.get(c).step > n)
+                c--;
+            while (checkpoints.size() > c + 1)
+                checkpoints.remove(checkpoints.size() - 1);
+            checkpoints.get(c).restore();
+            undoCount = 0;
+            readEnds();
+        }
+
+        while (execution.getSteps() < n) {
+            long next = Math.min(n, (execution.getSteps() / interval + 1) * interval);
+            execution.run(new RunBudget(next, RunBudget.UNLIMITED, RunBudget.UNLIMITED));
+            if (execution.getSteps() < next)
+                break;
+            if (next % interval == 0)
+                checkpoint();
+        }
+        tape.notifyChanged();
+        return execution.getSteps() == n;
+    }
+
+    @Override
+    public void record(long step, int state, int transition, char read, int position, int repeat) {
+        if (undoCount == MAX_UNDO)
+            dropUndo(MAX_UNDO / 2);
+        else if (undoCount == undoState.length)
+            allocateUndo(undoCount * 2);
+        undoState[undoCount] = state;
+        undoTransition[undoCount] = transition;
+        undoRead[undoCount] = read;
+        undoPosition[undoCount] = position;
+        undoRepeat[undoCount] = repeat;
+
+        // Sweeps are recorded once they are done, so the ends are tracked
+        // here rather than read off the tape. The step pads the tape out to
+        // the head if it starts off the end, and grows it to where it ends.
+        undoLow[undoCount] = low;
+        undoHigh[undoCount] = high;
+        int end = position + machine.move(transition) * repeat;
+        low = Math.min(low, Math.min(position, end));
+        high = Math.max(high, Math.max(position, end));
+        undoCount++;
+    }
+
+    private void readEnds() {
+        low = -tape.getOrigin();
+        high = tape.getSize() - 1 - tape.getOrigin();
+    }
+
+    private void checkpoint() {
+        long step = execution.getSteps();
+        if (!checkpoints.isEmpty() && checkpoints.get(checkpoints.size() - 1).step == step)
+            return;
+        if (checkpoints.size() == MAX_CHECKPOINTS) {
+            // Keep checkpoints on the doubled interval, step 0 always stays
+            interval *= 2;
+            ArrayList<Checkpoint> kept = new ArrayList<>();
+            for (Checkpoint c : checkpoints) {
+                if (c.step % interval == 0)
+                    kept.add(c);
+            }
+            checkpoints.clear();
+            checkpoints.addAll(kept);
+            if (step % interval != 0)
+                return;
+        }
+        checkpoints.add(new Checkpoint(step, execution.getState(), tape));
+        undoCount = 0;
+    }
+
+    // Forget the oldest n undo records, stepping back over those steps seeks instead
+    private void dropUndo(int n) {
+        undoCount -= n;
+        System.arraycopy(undoState, n, undoState, 0, undoCount);
+        System.arraycopy(undoTransition, n, undoTransition, 0, undoCount);
+        System.arraycopy(undoRead, n, undoRead, 0, undoCount);
+        System.arraycopy(undoPosition, n, undoPosition, 0, undoCount);
+        System.arraycopy(undoRepeat, n, undoRepeat, 0, undoCount);
+        System.arraycopy(undoLow, n, undoLow, 0, undoCount);
+        System.arraycopy(undoHigh, n, undoHigh, 0, undoCount);
+    }
+
+    private void allocateUndo(int size) {
+        undoState = Arrays.copyOf(undoState == null ? new int[0] : undoState, size);
+        undoTransition = Arrays.copyOf(undoTransition == null ? new int[0] : undoTransition, size);
+        undoRead = Arrays.copyOf(undoRead == null ? new char[0] : undoRead, size);
+        undoPosition = Arrays.copyOf(undoPosition == null ? new int[0] : undoPosition, size);
+        undoRepeat = Arrays.copyOf(undoRepeat == null ? new int[0] : undoRepeat, size);
+        undoLow = Arrays.copyOf(undoLow == null ? new int[0] : undoLow, size);
+        undoHigh = Arrays.copyOf(undoHigh == null ? new int[0] : undoHigh, size);
+    }
+
+    // Everything needed to put the run back to one step
+    private class Checkpoint {
+        final long step;
+        final int state;
+        final Tape.Snapshot cells;
+
+        Checkpoint(long step, int state, Tape tape) {
+            this.step = step;
+            this.state = state;
+            this.cells = tape.snapshot();
+        }
+
+        void restore() {
+            tape.restore(cells);
+            execution.restore(state, step);
+        }
+    }
+}
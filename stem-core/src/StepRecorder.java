@@ -13,21 +13,11 @@
  *     GNU General Public License for more details.
  */
 
-public class MachineStep {
-    private Transition t;
-    private char c;
-
-
-    MachineStep(Transition t, char c){
-        this.t = t;
-        this.c = c;
-    }
-
-    public char getChar(){
-        return this.c;
-    }
-
-    public Transition getTransition(){
-        return this.t;
-    }
+// Told about every step an Execution takes, see Execution.setTrace.
+// Called on the thread running the machine, so it has to be cheap.
+public interface StepRecorder {
+    // step is the number of steps taken before this one, position is the
+    // head position (tape index less origin) when the step started and
+    // repeat is how many times the transition was taken in a row (a sweep)
+    void record(long step, int state, int transition, char read, int position, int repeat);
 }
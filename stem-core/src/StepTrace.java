@@ -0,0 +1,96 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The last few thousand steps of a run, kept so a failed run can show how
+// it got where it did. Recording writes a handful of primitives into
+// preallocated arrays and never locks or allocates. There is one writer,
+// the thread running the machine; recent() may be called from any thread
+// and skips entries the writer overwrote while they were being copied.
+public class StepTrace implements StepRecorder {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final int mask;
+    private final long[] step;
+    private final int[] state;
+    private final int[] transition;
+    private final char[] read;
+    private final int[] head;
+    private final int[] repeat;
+
+    // Entries ever recorded, entry n lives at index n & mask
+    private final AtomicLong written = new AtomicLong();
+
+    public StepTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // Capacity is rounded up to a power of two
+    public StepTrace(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        step = new long[size];
+        state = new int[size];
+        transition = new int[size];
+        read = new char[size];
+        head = new int[size];
+        repeat = new int[size];
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public void record(long step, int state, int transition, char read, int head, int repeat) {
+        long n = written.get();
+        int i = (int) n & mask;
+        this.step[i] = step;
+        this.state[i] = state;
+        this.transition[i] = transition;
+        this.read[i] = read;
+        this.head[i] = head;
+        this.repeat[i] = repeat;
+        written.lazySet(n + 1);
+    }
+
+    public void clear() {
+        written.set(0);
+    }
+
+    // Most recent steps, oldest first, as lines for a person to read
+    public List<String> recent(CompiledMachine machine) {
+        long end = written.get();
+        long start = Math.max(0, end - getCapacity());
+        ArrayList<String> lines = new ArrayList<>();
+        for (long n = start; n < end; n++) {
+            int i = (int) n & mask;
+            Transition t = machine.getTransition(transition[i]);
+            String line = String.format("%d: %s reads '%c' at %d, writes '%c' moves %s to %s%s",
+                    step[i] + 1, machine.getState(state[i]).getName(), read[i], head[i],
+                    t.getWriteChar(), t.getMoveDirection(), t.getToState().getName(),
+                    repeat[i] > 1 ? String.format(" (x%d)", repeat[i]) : "");
+            lines.add(line);
+        }
+
+        // Anything the writer lapped while we were copying is garbage
+        long lapped = written.get() - getCapacity() + 1;
+        int drop = (int) Math.max(0, Math.min(lines.size(), lapped - start));
+        return lines.subList(drop, lines.size());
+    }
+}
@@ -0,0 +1,706 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// The tape of a machine, without any display code so a machine can be run
+// with no JavaFX toolkit. TapeView draws it in the editor.
+//
+// Cells are kept in fixed size chunks at the leaves of a persistent radix
+// tree. snapshot() hands out the current tree and stops this tape writing
+// to it, so a snapshot, fork or restore is O(1) however long the tape is.
+// The first write to a chunk afterwards copies the chunk and the nodes above
+// it (O(log n)), later writes to it go straight to the copy.
+public class Tape{
+    private int tapeHead = 0;
+    private volatile Listener listener;
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK - 1;
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    // Chunks no one has written to are left out of the tree and read as this
+    private static final char[] BLANK = blankChunk();
+
+    // Cell index i is at absolute position first + i in a tree covering
+    // CHUNK * WIDTH^levels positions. Positions outside the tape are blank.
+    private Node root;
+    private int levels;
+    private int first;
+    private int size = 0;
+
+    // Nodes owned by this token were made since the last snapshot and are
+    // not shared, so they can be written in place
+    private Object edit;
+
+    // The chunk under the head and the head's index in it, kept up to date
+    // whenever the head is on the tape so a step never walks the tree.
+    // curWritable says whether cur may be written in place.
+    private char[] cur = BLANK;
+    private int curChunk = -1;
+    private int pos;
+    private boolean curWritable;
+
+    // Cells added to the left since initTape, so index - origin is a
+    // position that does not shift when the tape grows to the left
+    private int origin = 0;
+
+    public Tape(){
+        clear(0);
+    }
+
+    @Override
+    public String toString() {
+        return new String(toCharArray());
+    }
+
+    public boolean setTapeHead(int tapeHead) {
+        if(tapeHead > this.size-1 || tapeHead < 0)
+            return false;
+
+        this.tapeHead = tapeHead;
+        seek();
+        return true;
+    }
+
+    public int getTapeHead(){
+        return this.tapeHead;
+    }
+
+    // Put the head on any cell, even one past either end of the tape.
+    // Blanks are filled in the next time the cell is read or written.
+    public void moveHead(int tapeHead){
+        this.tapeHead = tapeHead;
+        seek();
+        notifyChanged();
+    }
+
+    // Initialize Tape to t and set Tapehead to the start
+    public void initTape(ArrayList<Character> t){
+        char[] cells = new char[t.size()];
+        for(int i = 0; i < cells.length; i++)
+            cells[i] = t.get(i);
+        initTape(cells);
+    }
+
+    public void initTape(char[] t){
+        restore(t, 0, 0);
+    }
+
+    // The bytes from the buffer's position to its limit, one ISO-8859-1
+    // character a cell, go straight into the chunks with nothing in between
+    public void initTape(ByteBuffer cells){
+        int length = cells.remaining();
+        clear(length);
+        byte[] bytes = new byte[CHUNK];
+        for(int i = 0; i < length; ){
+            int at = first + i;
+            int n = Math.min(CHUNK - (at & CHUNK_MASK), length - i);
+            cells.get(bytes, 0, n);
+            char[] chunk = writable(at);
+            for(int j = 0, k = at & CHUNK_MASK; j < n; j++, k++)
+                chunk[k] = (char) (bytes[j] & 0xFF);
+            i += n;
+        }
+        this.size = length;
+        this.tapeHead = 0;
+        this.origin = 0;
+        seek();
+        notifyChanged();
+    }
+
+    // Put back cells, head and origin saved from toCharArray(),
+    // getTapeHead() and getOrigin()
+    public void restore(char[] t, int head, int origin){
+        clear(t.length);
+        for(int i = 0; i < t.length; ){
+            int at = first + i;
+            int n = Math.min(CHUNK - (at & CHUNK_MASK), t.length - i);
+            System.arraycopy(t, i, writable(at), at & CHUNK_MASK, n);
+            i += n;
+        }
+        this.size = t.length;
+        this.tapeHead = head;
+        this.origin = origin;
+        seek();
+        notifyChanged();
+    }
+
+    // Empty tree with room for at least length cells in the middle
+    private void clear(int length){
+        root = null;
+        levels = 1;
+        while((long) CHUNK << (BITS * levels) < 2L * length + CHUNK)
+            levels++;
+        // Centered in a chunk, so a short tape does not straddle two
+        first = (int) (capacity() / 2 + (CHUNK - length % CHUNK) / 2);
+        size = 0;
+        edit = new Object();
+        curChunk = -1;
+        curWritable = false;
+    }
+
+    private long capacity(){
+        return (long) CHUNK << (BITS * levels);
+    }
+
+    // Share the cells with the returned snapshot. Nothing is copied until
+    // either side changes a chunk.
+    public Snapshot snapshot(){
+        edit = new Object();
+        curWritable = false;
+        return new Snapshot(root, levels, first, size, tapeHead, origin);
+    }
+
+    public void restore(Snapshot s){
+        root = s.root;
+        levels = s.levels;
+        first = s.first;
+        size = s.size;
+        tapeHead = s.head;
+        origin = s.origin;
+        edit = new Object();
+        seek();
+        notifyChanged();
+    }
+
+    // A separate tape starting out the same as this one, in O(1)
+    public Tape fork(){
+        Tape copy = new Tape();
+        copy.restore(snapshot());
+        return copy;
+    }
+
+    public int getSize(){ return size; }
+
+    public void appendTape(char c){
+        if(first + size == capacity())
+            grow();
+        size++;
+        if(c != ' ')
+            put(first + size - 1, c);
+    }
+
+    public void prependTape(char c){
+        if(first == 0)
+            grow();
+        first--;
+        size++;
+        origin++;
+        if(c != ' ')
+            put(first, c);
+        seek();
+    }
+
+    public void setTape(char c){
+        if(tapeHead < 0 || tapeHead >= size)
+            coverHead();
+        if(!curWritable)
+            writable(first + tapeHead);
+        cur[pos] = c;
+    }
+
+    public char currentTapeVal(){
+        if(tapeHead < 0 || tapeHead >= size)
+            coverHead();
+        return cur[pos];
+    }
+
+    // Moving off the left end grows the tape into the space kept free
+    // before the first cell, so the head stays at index 0
+    public char left(){
+        if(tapeHead <= 0 || tapeHead >= size){
+            moveTo(tapeHead - 1);
+            return currentTapeVal();
+        }
+        tapeHead--;
+        if(--pos < 0)
+            seek();
+        return cur[pos];
+    }
+
+    public char right(){
+        if(tapeHead < 0 || tapeHead >= size-1){
+            tapeHead++;
+            if(tapeHead > size-1){
+                appendTape(' ');
+                tapeHead = size-1;
+            }
+            seek();
+            return currentTapeVal();
+        }
+        tapeHead++;
+        if(++pos == CHUNK)
+            seek();
+        return cur[pos];
+    }
+
+    // Take up to max steps of a transition that reads c, writes write
+    // (NONE to leave the cell alone) and moves direction (-1 or 1), stopping
+    // at the first cell that is not c or at the end of the tape.
+    // Leaves the tape exactly as that many left() or right() calls would.
+    // Returns the number of steps taken.
+    public int sweep(char c, int write, int direction, int max){
+        if(tapeHead < 0 || tapeHead >= size)
+            coverHead();
+        boolean writes = write >= 0 && write != c;
+        int n;
+        if(direction > 0){
+            int limit = (int) Math.min(size - tapeHead, (long) max);
+
+            // Most sweeps end in the chunk the head is already in
+            int end = (int) Math.min(CHUNK, (long) pos + limit);
+            int j = scanRight(cur, pos, end, c);
+            if(writes && j > pos){
+                if(!curWritable)
+                    writable(first + tapeHead);
+                Arrays.fill(cur, pos, j, (char) write);
+            }
+            n = j - pos;
+            if(j == end && n < limit)
+                n += sweepChunks(c, write, writes, first + tapeHead + n, limit - n, 1);
+
+            tapeHead += n;
+            boolean grew = tapeHead > size-1;
+            if(grew)
+                appendTape(' ');
+            if(!grew && pos + n < CHUNK)
+                pos += n;
+            else
+                seek();
+        } else {
+            int limit = (int) Math.min(tapeHead + 1L, (long) max);
+
+            int end = (int) Math.max(-1, (long) pos - limit);
+            int j = scanLeft(cur, pos, end, c);
+            if(writes && j < pos){
+                if(!curWritable)
+                    writable(first + tapeHead);
+                Arrays.fill(cur, j + 1, pos + 1, (char) write);
+            }
+            n = pos - j;
+            if(j == end && n < limit)
+                n += sweepChunks(c, write, writes, first + tapeHead - n, limit - n, -1);
+
+            tapeHead -= n;
+            if(tapeHead < 0){
+                prependTape(' ');
+                tapeHead = 0;
+                seek();
+            } else if(pos - n >= 0)
+                pos -= n;
+            else
+                seek();
+        }
+        return n;
+    }
+
+    // The rest of a sweep that ran off the head's chunk, from absolute
+    // position at for up to limit cells. Returns the cells swept.
+    private int sweepChunks(char c, int write, boolean writes, int at, int limit, int direction){
+        int n = 0;
+        while(n < limit){
+            int i = at & CHUNK_MASK;
+            char[] chunk = chunkAt(root, levels, at >>> CHUNK_BITS);
+            int j;
+            if(direction > 0){
+                int end = (int) Math.min(CHUNK, (long) i + limit - n);
+                j = scanRight(chunk, i, end, c);
+                if(writes && j > i)
+                    Arrays.fill(writable(at), i, j, (char) write);
+                n += j - i;
+                at += j - i;
+                if(j < end)
+                    break;
+            } else {
+                int end = (int) Math.max(-1, (long) i - (limit - n));
+                j = scanLeft(chunk, i, end, c);
+                if(writes && j < i)
+                    Arrays.fill(writable(at), j + 1, i + 1, (char) write);
+                n += i - j;
+                at -= i - j;
+                if(j > end)
+                    break;
+            }
+        }
+        return n;
+    }
+
+    // First index in [from, to) not holding c, or to. Unrolled by four so
+    // the compiled loop compares several cells per bounds check.
+    private static int scanRight(char[] a, int from, int to, char c){
+        int i = from;
+        for(; i + 3 < to; i += 4){
+            if(a[i] != c) return i;
+            if(a[i+1] != c) return i+1;
+            if(a[i+2] != c) return i+2;
+            if(a[i+3] != c) return i+3;
+        }
+        while(i < to && a[i] == c)
+            i++;
+        return i;
+    }
+
+    // Last index in (to, from] not holding c going left, or to
+    private static int scanLeft(char[] a, int from, int to, char c){
+        int i = from;
+        for(; i - 3 > to; i -= 4){
+            if(a[i] != c) return i;
+            if(a[i-1] != c) return i-1;
+            if(a[i-2] != c) return i-2;
+            if(a[i-3] != c) return i-3;
+        }
+        while(i > to && a[i] == c)
+            i--;
+        return i;
+    }
+
+    public int getOrigin(){
+        return origin;
+    }
+
+    public char charAt(int index){
+        return chunkAt(root, levels, (first + index) >>> CHUNK_BITS)[(first + index) & CHUNK_MASK];
+    }
+
+    public char[] toCharArray(){
+        return copyCells(root, levels, first, size);
+    }
+
+    // Fill cells with the tape from index start on, blanks where that is
+    // off the tape. Only the chunks in range are read, so showing part of
+    // a long tape costs the part and not the tape.
+    public void getCells(int start, char[] cells){
+        readCells(root, levels, first, size, start, cells, cells.length);
+    }
+
+    public char[] window(int start, int count){
+        char[] cells = new char[count];
+        getCells(start, cells);
+        return cells;
+    }
+
+    // Overwrite the cells from index start on, growing the tape with blanks
+    // first if they run past either end. The head stays on its cell.
+    // Returns the number of cells added on the left, by which every index
+    // has moved.
+    public int setCells(int start, char[] cells){
+        int added = 0;
+        while(start + added < 0){
+            prependTape(' ');
+            added++;
+        }
+        tapeHead += added;
+        int from = start + added;
+        while(size < from + cells.length)
+            appendTape(' ');
+        for(int i = 0; i < cells.length; ){
+            int at = first + from + i;
+            int n = Math.min(CHUNK - (at & CHUNK_MASK), cells.length - i);
+            System.arraycopy(cells, i, writable(at), at & CHUNK_MASK, n);
+            i += n;
+        }
+        seek();
+        notifyChanged();
+        return added;
+    }
+
+    public Character[] getTapeAsArray(){
+        char[] cells = toCharArray();
+        Character[] ret = new Character[size];
+        for(int i = 0; i < size; i++)
+            ret[i] = cells[i];
+        return ret;
+    }
+
+    // Cover the positions (index less origin) a tape with this origin and
+    // size does, adding blanks or taking cells off at either end
+    public void resize(int origin, int size){
+        while(this.origin < origin){
+            prependTape(' ');
+            tapeHead++;
+        }
+        while(this.size - this.origin < size - origin)
+            appendTape(' ');
+        shrink(origin, size);
+    }
+
+    // Take off the cells added to either end since the tape had this origin
+    // and size, for stepping back over the steps that added them. The cells
+    // are blanked first so growing again finds blanks there.
+    public void shrink(int origin, int size){
+        int left = this.origin - origin;
+        int right = this.size - left - size;
+        if(left < 0 || right < 0)
+            throw new IllegalArgumentException("The tape is smaller than that already");
+        for(int i = 0; i < left; i++)
+            blank(first + i);
+        for(int i = 1; i <= right; i++)
+            blank(first + this.size - i);
+        first += left;
+        this.size = size;
+        this.origin = origin;
+        tapeHead -= left;
+        seek();
+    }
+
+    private void blank(int at){
+        if(chunkAt(root, levels, at >>> CHUNK_BITS)[at & CHUNK_MASK] != ' ')
+            put(at, ' ');
+    }
+
+    // Pad with blanks so the head (which can be clicked anywhere in the
+    // display) always sits on a real cell
+    private void coverHead(){
+        while(tapeHead < 0){
+            prependTape(' ');
+            tapeHead++;
+        }
+        while(tapeHead >= size)
+            appendTape(' ');
+        seek();
+    }
+
+    // Add a level above the root with the old tree in the middle, so there
+    // is as much free space as before on both ends. Growth in either
+    // direction stays amortized O(1) and nothing is copied.
+    private void grow(){
+        if(capacity() * WIDTH > Integer.MAX_VALUE)
+            throw new IllegalStateException("The tape cannot grow past " + capacity() + " cells");
+        Node top = new Node(edit, new Node[WIDTH], null);
+        top.children[WIDTH / 2] = root;
+        first += (int) (capacity() * (WIDTH / 2));
+        root = top;
+        levels++;
+        seek();
+    }
+
+    private void put(int at, char c){
+        writable(at)[at & CHUNK_MASK] = c;
+    }
+
+    private void moveTo(int tapeHead){
+        this.tapeHead = tapeHead;
+        seek();
+    }
+
+    // Point the cursor at the head. Off the tape it is left on a blank
+    // chunk until coverHead puts a cell there.
+    private void seek(){
+        int at = first + tapeHead;
+        if(tapeHead < 0 || tapeHead >= size){
+            cur = BLANK;
+            curChunk = -1;
+            pos = 0;
+        } else {
+            curChunk = at >>> CHUNK_BITS;
+            cur = chunkAt(root, levels, curChunk);
+            pos = at & CHUNK_MASK;
+        }
+        curWritable = false;
+    }
+
+    // Chunk holding absolute position at, copied along with the nodes above
+    // it first if it is shared
+    private char[] writable(int at){
+        int chunk = at >>> CHUNK_BITS;
+        root = (root == null) ? new Node(edit, new Node[WIDTH], null) : root.editable(edit);
+        Node node = root;
+        for(int level = levels; level > 1; level--){
+            int digit = (chunk >>> (BITS * (level - 1))) & MASK;
+            Node child = node.children[digit];
+            child = (child == null) ? new Node(edit, new Node[WIDTH], null) : child.editable(edit);
+            node.children[digit] = child;
+            node = child;
+        }
+        Node leaf = node.children[chunk & MASK];
+        leaf = (leaf == null) ? new Node(edit, null, BLANK.clone()) : leaf.editable(edit);
+        node.children[chunk & MASK] = leaf;
+
+        // The cursor must not be left reading the chunk this replaced
+        if(chunk == curChunk){
+            cur = leaf.cells;
+            curWritable = true;
+        }
+        return leaf.cells;
+    }
+
+    private static char[] chunkAt(Node root, int levels, int chunk){
+        Node node = root;
+        for(int level = levels; level > 0 && node != null; level--)
+            node = node.children[(chunk >>> (BITS * (level - 1))) & MASK];
+        return (node == null) ? BLANK : node.cells;
+    }
+
+    private static char[] copyCells(Node root, int levels, int first, int size){
+        char[] ret = new char[size];
+        for(int i = 0; i < size; ){
+            int at = first + i;
+            int n = Math.min(CHUNK - (at & CHUNK_MASK), size - i);
+            System.arraycopy(chunkAt(root, levels, at >>> CHUNK_BITS), at & CHUNK_MASK, ret, i, n);
+            i += n;
+        }
+        return ret;
+    }
+
+    // The count cells from index start on into cells, blanks off the tape
+    private static void readCells(Node root, int levels, int first, int size, int start, char[] cells, int count){
+        Arrays.fill(cells, 0, count, ' ');
+        int from = Math.max(start, 0);
+        int to = (int) Math.min((long) start + count, size);
+        for(int i = from; i < to; ){
+            int at = first + i;
+            int n = Math.min(CHUNK - (at & CHUNK_MASK), to - i);
+            System.arraycopy(chunkAt(root, levels, at >>> CHUNK_BITS), at & CHUNK_MASK, cells, i - start, n);
+            i += n;
+        }
+    }
+
+    private static char[] blankChunk(){
+        char[] blank = new char[CHUNK];
+        Arrays.fill(blank, ' ');
+        return blank;
+    }
+
+    // An inner node (children) or a chunk of cells (cells). Never changed
+    // unless owned by the edit token of the tape changing it.
+    private static final class Node {
+        final Object owner;
+        final Node[] children;
+        final char[] cells;
+
+        Node(Object owner, Node[] children, char[] cells){
+            this.owner = owner;
+            this.children = children;
+            this.cells = cells;
+        }
+
+        Node editable(Object edit){
+            if(owner == edit)
+                return this;
+            return new Node(edit, children == null ? null : children.clone(), cells == null ? null : cells.clone());
+        }
+    }
+
+    // The cells, head and origin of a tape at one moment. Never changes, and
+    // shares its cells with the tape it came from.
+    public static final class Snapshot {
+        private final Node root;
+        private final int levels;
+        private final int first;
+        private final int size;
+        private final int head;
+        private final int origin;
+
+        private Snapshot(Node root, int levels, int first, int size, int head, int origin){
+            this.root = root;
+            this.levels = levels;
+            this.first = first;
+            this.size = size;
+            this.head = head;
+            this.origin = origin;
+        }
+
+        public int getSize(){ return size; }
+
+        public int getTapeHead(){ return head; }
+
+        public int getOrigin(){ return origin; }
+
+        public char charAt(int index){
+            return chunkAt(root, levels, (first + index) >>> CHUNK_BITS)[(first + index) & CHUNK_MASK];
+        }
+
+        public char[] toCharArray(){
+            return copyCells(root, levels, first, size);
+        }
+
+        // See Tape.getCells
+        public void getCells(int start, char[] cells){
+            readCells(root, levels, first, size, start, cells, cells.length);
+        }
+
+        // Cells that differ from the cell at the same position (index less
+        // origin) of base, off base counting as blank, as from and to index
+        // pairs. Chunks shared with base are skipped without being read, so
+        // against a snapshot taken before a run this costs the chunks the
+        // run wrote to.
+        public int[] changedSince(Snapshot base){
+            int[] ranges = new int[16];
+            int count = 0;
+            int shift = base.origin - origin;
+            char[] old = new char[CHUNK];
+            for(int i = 0; i < size; ){
+                int at = first + i;
+                int off = at & CHUNK_MASK;
+                int n = Math.min(CHUNK - off, size - i);
+                char[] chunk = chunkAt(root, levels, at >>> CHUNK_BITS);
+                int j = i + shift;
+                int baseAt = base.first + j;
+                if(j >= 0 && j + n <= base.size && (baseAt & CHUNK_MASK) == off
+                        && chunkAt(base.root, base.levels, baseAt >>> CHUNK_BITS) == chunk){
+                    i += n;
+                    continue;
+                }
+
+                readCells(base.root, base.levels, base.first, base.size, j, old, n);
+                int lo = 0;
+                while(lo < n && chunk[off + lo] == old[lo])
+                    lo++;
+                if(lo < n){
+                    int hi = n;
+                    while(chunk[off + hi - 1] == old[hi - 1])
+                        hi--;
+                    if(count > 0 && ranges[count - 1] == i + lo){
+                        ranges[count - 1] = i + hi;
+                    } else {
+                        if(count == ranges.length)
+                            ranges = Arrays.copyOf(ranges, count * 2);
+                        ranges[count++] = i + lo;
+                        ranges[count++] = i + hi;
+                    }
+                }
+                i += n;
+            }
+            return Arrays.copyOf(ranges, count);
+        }
+    }
+
+    public void setListener(Listener listener){
+        this.listener = listener;
+    }
+
+    public Listener getListener(){
+        return listener;
+    }
+
+    // Contents or head were replaced wholesale (load, edit, reset, click)
+    public void notifyChanged(){
+        Listener l = listener;
+        if(l != null)
+            l.tapeChanged(this);
+    }
+
+    // Implemented by anything displaying the tape, the tape itself never
+    // depends on how (or whether) it is shown
+    public interface Listener {
+        void tapeChanged(Tape tape);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+// The cells of one tape kept in a file of their own, so inputs of millions
+// of cells stay out of the machine file. A tape file is plain text, one
+// ISO-8859-1 character a cell, and can be made with any tool; a line break
+// at the end is not part of the tape. Save files name it in a TAPE FILE:
+// section, relative to the machine file unless the path is absolute.
+public class TapeFile {
+    private static final int BLOCK = 1 << 16;
+
+    // Where a tape file named in a machine file in dir is
+    public static File resolve(File dir, String path) {
+        File file = new File(path);
+        return (file.isAbsolute() || dir == null) ? file : new File(dir, path);
+    }
+
+    // Maps the file and reads it into tape with the head on the first cell
+    public static void load(File file, Tape tape) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large for a tape");
+            MappedByteBuffer cells = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int end = (int) size;
+            if (end > 0 && cells.get(end - 1) == '\n')
+                end--;
+            if (end > 0 && cells.get(end - 1) == '\r')
+                end--;
+            cells.limit(end);
+            tape.initTape(cells);
+        }
+    }
+
+    // Throws an IOException naming the first cell of tape a tape file cannot hold
+    public static void check(Tape tape) throws IOException {
+        char[] cells = new char[BLOCK];
+        int size = tape.getSize();
+        for (int i = 0; i < size; i += BLOCK) {
+            int n = Math.min(BLOCK, size - i);
+            tape.getCells(i, cells);
+            for (int j = 0; j < n; j++) {
+                if (cells[j] > 0xFF)
+                    throw unfit(i + j, cells[j]);
+            }
+        }
+    }
+
+    private static IOException unfit(int cell, char c) {
+        return new IOException("Cell " + cell + " holds '" + c + "', which a tape file cannot");
+    }
+
+    // Writes the cells of tape to file a block at a time, replacing it. The
+    // cells go to a file next to it that is only moved over it once all are
+    // written, so a cell a tape file cannot hold leaves the old file as it
+    // was. SaveLoad checks every tape first, so a machine is not saved
+    // half way either.
+    public static void save(File file, Tape tape) throws IOException {
+        char[] cells = new char[BLOCK];
+        int size = tape.getSize();
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.allocateDirect(BLOCK);
+            for (int i = 0; i < size; i += BLOCK) {
+                int n = Math.min(BLOCK, size - i);
+                tape.getCells(i, cells);
+                bytes.clear();
+                for (int j = 0; j < n; j++) {
+                    if (cells[j] > 0xFF)
+                        throw unfit(i + j, cells[j]);
+                    bytes.put((byte) cells[j]);
+                }
+                bytes.flip();
+                while (bytes.hasRemaining())
+                    channel.write(bytes);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp.toPath());
+            throw e;
+        }
+        SaveLoad.replace(tmp, file);
+    }
+}
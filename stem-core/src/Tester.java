@@ -0,0 +1,387 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class Tester {
+    private String failReason;
+    private boolean succeeded;
+    private boolean cont;
+    private boolean stoppedEarly;
+    private boolean atBreakpoint;
+    private Breakpoints breakpoints = new Breakpoints();
+    private boolean detectLoops;
+    private boolean countHits;
+    private Heatmap heatmap;
+    private RunBudget budget = new RunBudget();
+    private CompiledMachine compiled;
+    private Machine compiledFrom;
+    private Execution execution;
+    private StepListener stepListener;
+    private ProgressListener progressListener;
+    private final StepTrace trace = new StepTrace();
+    private List<String> acceptingPath = Collections.emptyList();
+
+    // Steps a turbo run takes between progress reports and checks for Stop
+    private static final int TURBO_CHUNK = 1 << 18;
+
+    public Tester() { }
+
+    // Compile m up front so nextTransition is a table lookup (used by step mode)
+    public Tester(Machine m) {
+        compiled = CompiledMachine.compile(m);
+        compiledFrom = m;
+    }
+
+    public boolean isCont() {
+        return cont;
+    }
+
+    public void setCont(boolean cont) {
+        this.cont = cont;
+    }
+
+    public void setFailReason(String reason) { failReason = reason; }
+
+    public String getFailReason() {
+        return failReason;
+    }
+
+    public boolean didSucceed() {
+        return succeeded;
+    }
+
+    // True if the last run was stopped by its budget or because it
+    // provably loops forever, rather than halting or hitting a breakpoint
+    public boolean stoppedEarly() {
+        return stoppedEarly;
+    }
+
+    // True if the last run paused at a breakpoint, runMachine picks up
+    // from there
+    public boolean atBreakpoint() {
+        return atBreakpoint;
+    }
+
+    public String describeBreakpoint() {
+        return (execution == null) ? "" : execution.describeOutcome(budget);
+    }
+
+    public Breakpoints getBreakpoints() {
+        return breakpoints;
+    }
+
+    public void setBreakpoints(Breakpoints breakpoints) {
+        this.breakpoints = breakpoints;
+    }
+
+    public void setDetectLoops(boolean detectLoops) {
+        this.detectLoops = detectLoops;
+    }
+
+    // Count how often each transition is taken in runs from now on
+    public void setCountHits(boolean countHits) {
+        this.countHits = countHits;
+    }
+
+    // Counts from the last run, null if it was not counted or was run by
+    // the explore or multi-tape engines
+    public Heatmap getHeatmap() {
+        return heatmap;
+    }
+
+    public RunBudget getBudget() {
+        return budget;
+    }
+
+    public void setBudget(RunBudget budget) {
+        this.budget = budget;
+    }
+
+    // Told about every step of runMachine, on the thread running the machine
+    public void setStepListener(StepListener stepListener) {
+        this.stepListener = stepListener;
+    }
+
+    // Told how a turbo run is getting on a few hundred times a second
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    // The last steps of the current run, oldest first
+    public List<String> getRecentSteps() {
+        if(compiled == null)
+            return Collections.emptyList();
+        return trace.recent(compiled);
+    }
+
+    public Transition nextTransition(State currentState, Tape tape){
+        if(compiled != null){
+            int state = compiled.stateId(currentState);
+            if(state != CompiledMachine.NONE){
+                int t = compiled.transitionFor(state, tape.currentTapeVal());
+                return (t == CompiledMachine.NONE) ? null : compiled.getTransition(t);
+            }
+        }
+
+        // State was added after the machine was compiled
+        return CompiledMachine.scan(currentState, tape.currentTapeVal(), false);
+    }
+
+    public State runMachine(Machine m, State startState) throws Exception{
+        State currentState;
+        Tape tape = m.getTape();
+
+        // Fail if there is no start state
+        currentState = startState;
+       if(currentState == null){
+            failReason = "Machine has no start state!";
+            succeeded = false;
+            return null;
+        }
+        if(m.getTapeCount() > 1)
+            return runMultiTape(m, currentState);
+
+        // Only recompile when handed a different machine, resuming from a
+        // breakpoint keeps the same table
+        if(compiled == null || compiledFrom != m){
+            compiled = CompiledMachine.compile(m);
+            compiledFrom = m;
+            if(!compiled.isDeterministic() && m.getSpeed() != Machine.EXPLORE)
+                Trace.info("Machine is nondeterministic, taking the first transition that applies. Explore runs every branch.");
+        }
+        if(m.getSpeed() == Machine.EXPLORE)
+            return runExplore(m, currentState);
+        // Resuming from a breakpoint continues the same execution so its
+        // step count (and step budget) carries on
+        if(execution == null || execution.getMachine() != compiled || execution.getState() != compiled.stateId(currentState)) {
+            execution = new Execution(compiled, tape, compiled.stateId(currentState));
+            execution.setLoopDetection(detectLoops);
+            execution.setTrace(trace);
+            trace.clear();
+            heatmap = countHits ? new Heatmap(compiled, compiled.stateId(currentState)) : null;
+            execution.setHeatmap(heatmap);
+        }
+        // Breakpoints may have changed while stopped at one
+        execution.setBreakpoints(breakpoints.compile(compiled));
+        atBreakpoint = false;
+
+        int waitTime = m.getSpeed();
+        long started = System.nanoTime();
+        stoppedEarly = false;
+
+        if(waitTime == Machine.TURBO)
+            return runTurbo(m, started);
+
+        // Main body
+
+        stepped(currentState, tape);
+        int next = execution.peek();
+        while(next != CompiledMachine.NONE) {
+            Transition t = compiled.getTransition(next);
+
+            execution.step();
+
+            if(Trace.isEnabled(Trace.Level.STEP))
+                Trace.log(Trace.Level.STEP, "Going from State %s to %s along Transition %c ; %c ; %c",
+                        currentState.getName(), t.getToState().getName(),
+                        t.getReadChar(), t.getWriteChar(), t.getMoveDirection().toString().charAt(0));
+
+            currentState = compiled.getState(execution.getState());
+            stepped(currentState, tape);
+
+            TimeUnit.MILLISECONDS.sleep(waitTime);
+
+            next = execution.peek();
+
+            if(execution.getOutcome() == Execution.Outcome.LOOPS_FOREVER
+                    || execution.overBudget(budget, started)){
+                failReason = execution.describeOutcome(budget);
+                succeeded = false;
+                stoppedEarly = true;
+                return currentState;
+            }
+
+            //Detect breakpoints
+            if(execution.getOutcome() == Execution.Outcome.BREAKPOINT){
+                atBreakpoint = true;
+                return currentState;
+            }
+        }
+
+        TimeUnit.MILLISECONDS.sleep(waitTime);
+        this.succeeded = currentState.isAccept();
+        return currentState;
+    }
+
+    // Full speed: no sleeping, printing or drawing until the run halts, hits
+    // a breakpoint or goes over budget. Runs in chunks so progress can be
+    // reported and Stop, which interrupts this thread, is noticed quickly.
+    private State runTurbo(Machine m, long started) throws InterruptedException {
+        Tape tape = m.getTape();
+
+        // The chunks get their own step cap, the real budget is checked after each
+        RunBudget chunk = new RunBudget(0, RunBudget.UNLIMITED, budget.getMaxTapeLength());
+        boolean halted = false;
+        while(!halted) {
+            chunk.setMaxSteps(Math.min(budget.getMaxSteps(), execution.getSteps() + TURBO_CHUNK));
+            Execution.Outcome outcome = execution.run(chunk);
+            halted = outcome == Execution.Outcome.HALTED;
+
+            State currentState = compiled.getState(execution.getState());
+            progress(tape, started);
+            if(outcome == Execution.Outcome.BREAKPOINT) {
+                atBreakpoint = true;
+                stepped(currentState, tape);
+                return currentState;
+            }
+            if(Thread.interrupted())
+                throw new InterruptedException();
+
+            if(outcome == Execution.Outcome.LOOPS_FOREVER
+                    || (!halted && execution.overBudget(budget, started))){
+                failReason = execution.describeOutcome(budget);
+                succeeded = false;
+                stoppedEarly = true;
+                stepped(currentState, tape);
+                return currentState;
+            }
+        }
+
+        State currentState = compiled.getState(execution.getState());
+        stepped(currentState, tape);
+        this.succeeded = currentState.isAccept();
+        return currentState;
+    }
+
+    // Every branch at once. The tape is left as the accepting branch left
+    // it, or as it was if none accepted.
+    private State runExplore(Machine m, State startState) throws InterruptedException {
+        Tape tape = m.getTape();
+        execution = null;
+        heatmap = null;
+        trace.clear();
+        atBreakpoint = false;
+
+        NondeterministicSearch search = new NondeterministicSearch(compiled);
+        Execution.Outcome outcome = search.run(compiled.stateId(startState), tape, budget);
+        acceptingPath = search.describePath();
+        stoppedEarly = outcome != Execution.Outcome.HALTED;
+        if(search.isAccepted()) {
+            search.replay(tape);
+            State accepted = compiled.getState(search.getAcceptingState());
+            stepped(accepted, tape, search.getDepth());
+            succeeded = true;
+            return accepted;
+        }
+        failReason = search.describeOutcome();
+        succeeded = false;
+        return startState;
+    }
+
+    // Steps of the branch that accepted in the last explore run, empty otherwise
+    public List<String> getAcceptingPath() {
+        return acceptingPath;
+    }
+
+    // k-tape machines have their own engine, which has no breakpoints, loop
+    // detection, recent steps or exploring. Listeners are shown the first tape.
+    private State runMultiTape(Machine m, State startState) throws InterruptedException {
+        CompiledMultiTape machine = CompiledMultiTape.compile(m);
+        MultiTapeExecution run = new MultiTapeExecution(machine, m, machine.stateId(startState));
+        compiled = null;
+        compiledFrom = null;
+        execution = null;
+        heatmap = null;
+        trace.clear();
+        atBreakpoint = false;
+        stoppedEarly = false;
+
+        Tape tape = m.getTape();
+        int waitTime = m.getSpeed();
+        // There is no k-tape explorer, the first branch is run flat out instead
+        if(waitTime == Machine.EXPLORE) {
+            Trace.info("Exploring only works on one-tape machines, running the first branch at turbo speed.");
+            waitTime = Machine.TURBO;
+        }
+        long started = System.nanoTime();
+        RunBudget chunk = new RunBudget(0, RunBudget.UNLIMITED, budget.getMaxTapeLength());
+        stepped(startState, tape, 0);
+        while(true) {
+            if(waitTime == Machine.TURBO) {
+                chunk.setMaxSteps(Math.min(budget.getMaxSteps(), run.getSteps() + TURBO_CHUNK));
+                Execution.Outcome outcome = run.run(chunk);
+                progress(run.getSteps(), tape, started);
+                if(Thread.interrupted())
+                    throw new InterruptedException();
+                if(outcome == Execution.Outcome.HALTED)
+                    break;
+            } else {
+                if(run.step() == CompiledMultiTape.NONE)
+                    break;
+                stepped(machine.getState(run.getState()), tape, run.getSteps());
+                TimeUnit.MILLISECONDS.sleep(waitTime);
+            }
+
+            if(run.overBudget(budget, started)) {
+                failReason = run.describeOutcome(budget);
+                succeeded = false;
+                stoppedEarly = true;
+                State currentState = machine.getState(run.getState());
+                stepped(currentState, tape, run.getSteps());
+                return currentState;
+            }
+        }
+
+        State currentState = machine.getState(run.getState());
+        stepped(currentState, tape, run.getSteps());
+        this.succeeded = currentState.isAccept();
+        return currentState;
+    }
+
+    private void progress(Tape tape, long started) {
+        progress(execution.getSteps(), tape, started);
+    }
+
+    private void progress(long steps, Tape tape, long started) {
+        ProgressListener l = progressListener;
+        if(l != null)
+            l.progress(steps, System.nanoTime() - started, tape.getSize());
+    }
+
+    private void stepped(State state, Tape tape) {
+        stepped(state, tape, execution.getSteps());
+    }
+
+    private void stepped(State state, Tape tape, long steps) {
+        StepListener l = stepListener;
+        if(l != null)
+            l.stepped(state, tape, steps);
+    }
+
+    // Watches a run from the thread running it, so it must not touch the
+    // scene graph directly (see RenderPipeline)
+    public interface StepListener {
+        void stepped(State state, Tape tape, long steps);
+    }
+
+    public interface ProgressListener {
+        void progress(long steps, long elapsedNanos, int tapeLength);
+    }
+
+
+}
\ No newline at end of file
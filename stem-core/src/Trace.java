@@ -0,0 +1,83 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.Locale;
+
+// Leveled debug output. Everything that used to printf straight to the
+// console goes through here so it can be turned down or sent elsewhere.
+//
+// The level comes from the stem.trace system property (off, error, info,
+// debug or step) and defaults to info. log() formats nothing when its
+// level is off, but the varargs array is still built, so code that runs on
+// every step checks isEnabled first.
+public final class Trace {
+    public enum Level { OFF, ERROR, INFO, DEBUG, STEP }
+
+    // Where enabled messages end up
+    public interface Sink {
+        void message(Level level, String text);
+    }
+
+    public static final Sink CONSOLE = (level, text) -> System.out.println(text);
+
+    private static volatile Level level = parseLevel(System.getProperty("stem.trace"), Level.INFO);
+    private static volatile Sink sink = CONSOLE;
+
+    private Trace() { }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level level) {
+        Trace.level = level;
+    }
+
+    public static void setSink(Sink sink) {
+        Trace.sink = (sink == null) ? CONSOLE : sink;
+    }
+
+    public static boolean isEnabled(Level at) {
+        return at != Level.OFF && at.compareTo(level) <= 0;
+    }
+
+    public static void log(Level at, String format, Object... args) {
+        if (isEnabled(at))
+            sink.message(at, String.format(format, args));
+    }
+
+    public static void error(String format, Object... args) {
+        log(Level.ERROR, format, args);
+    }
+
+    public static void info(String format, Object... args) {
+        log(Level.INFO, format, args);
+    }
+
+    public static void debug(String format, Object... args) {
+        log(Level.DEBUG, format, args);
+    }
+
+    // Level named by text, or fallback if text is null or not a level
+    public static Level parseLevel(String text, Level fallback) {
+        if (text == null)
+            return fallback;
+        try {
+            return Level.valueOf(text.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+// Reads a file written by TraceRecorder. Finding step N is a binary
+// search of the index and a scan of at most one interval of records.
+public class TraceFile implements Closeable {
+    private static final int WINDOW = 1 << 30;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer[] windows;
+
+    private final int interval;
+    private final int startState;
+    private final int startPosition;
+    private final int firstCellPosition;
+    private final char[] startTape;
+    private final long[] index;
+    private final int indexEntries;
+    private final long steps;
+
+    private TraceFile(File in) throws IOException {
+        file = new RandomAccessFile(in, "r");
+        try {
+            long length = file.length();
+            if (length < 32)
+                throw new IOException(in + " is not a STEM trace");
+            file.seek(length - 32);
+            DataInputStream data = reader(file);
+            long dataEnd = data.readLong();
+            indexEntries = (int) data.readLong();
+            steps = data.readLong();
+            if (data.readLong() != TraceRecorder.MAGIC)
+                throw new IOException(in + " is not a STEM trace or was not closed");
+
+            file.seek(dataEnd);
+            data = reader(file);
+            index = new long[indexEntries * 3];
+            for (int i = 0; i < index.length; i++)
+                index[i] = data.readLong();
+
+            file.seek(0);
+            data = reader(file);
+            if (data.readLong() != TraceRecorder.MAGIC)
+                throw new IOException(in + " is not a STEM trace");
+            int version = data.readInt();
+            if (version != TraceRecorder.VERSION)
+                throw new IOException("Unsupported trace version " + version);
+            interval = data.readInt();
+            startState = data.readInt();
+            startPosition = data.readInt();
+            int tapeLength = data.readInt();
+            firstCellPosition = data.readInt();
+            startTape = new char[tapeLength];
+            for (int i = 0; i < tapeLength; i++)
+                startTape[i] = data.readChar();
+
+            FileChannel channel = file.getChannel();
+            windows = new MappedByteBuffer[(int) ((dataEnd + WINDOW - 1) / WINDOW)];
+            for (int i = 0; i < windows.length; i++) {
+                long start = (long) i * WINDOW;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, dataEnd - start));
+            }
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    // Buffered reads from the file's position. Never closed, which would close the file
+    private static DataInputStream reader(RandomAccessFile file) {
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(file.getChannel())));
+    }
+
+    public static TraceFile open(File in) throws IOException {
+        return new TraceFile(in);
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public int getStartState() {
+        return startState;
+    }
+
+    // Head position when the run started, see Step.getPosition
+    public int getStartPosition() {
+        return startPosition;
+    }
+
+    // Tape the run started on and the position of its first cell
+    public char[] getStartTape() {
+        return startTape.clone();
+    }
+
+    public int getFirstCellPosition() {
+        return firstCellPosition;
+    }
+
+    // Step n of the run, counting from 0
+    public Step step(long n) {
+        if (n < 0 || n >= steps)
+            throw new IndexOutOfBoundsException("Step " + n + " of " + steps);
+
+        // Last index entry starting at or before n
+        int lo = 0;
+        int hi = indexEntries - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (index[mid * 3] <= n)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        long step = index[lo * 3];
+        long offset = index[lo * 3 + 1];
+        long position = index[lo * 3 + 2];
+
+        long[] at = { offset };
+        while (true) {
+            int transition = (int) readVarint(at);
+            char read = (char) readVarint(at);
+            long zigzag = readVarint(at);
+            long delta = (zigzag >>> 1) ^ -(zigzag & 1);
+            long count = Math.max(1, Math.abs(delta));
+            if (n < step + count) {
+                int direction = Long.signum(delta);
+                return new Step(n, transition, read, position + direction * (n - step), direction);
+            }
+            step += count;
+            position += delta;
+        }
+    }
+
+    private byte get(long offset) {
+        return windows[(int) (offset / WINDOW)].get((int) (offset % WINDOW));
+    }
+
+    private long readVarint(long[] at) {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = get(at[0]++);
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return v;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    // One step of a recorded run
+    public static class Step {
+        private final long number;
+        private final int transition;
+        private final char read;
+        private final long position;
+        private final int move;
+
+        Step(long number, int transition, char read, long position, int move) {
+            this.number = number;
+            this.transition = transition;
+            this.read = read;
+            this.position = position;
+            this.move = move;
+        }
+
+        public long getNumber() {
+            return number;
+        }
+
+        // Id in the CompiledMachine the run was recorded with
+        public int getTransition() {
+            return transition;
+        }
+
+        // Symbol under the head before the step wrote over it
+        public char getRead() {
+            return read;
+        }
+
+        // Head position before the step, tape index less Tape.getOrigin()
+        public long getPosition() {
+            return position;
+        }
+
+        // -1, 0 or 1
+        public int getMove() {
+            return move;
+        }
+    }
+}
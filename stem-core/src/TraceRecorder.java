@@ -0,0 +1,186 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Writes the full step history of a run to a file, a few bytes per step,
+// so a run of billions of steps can be gone over afterwards with TraceFile.
+//
+// The file is written through memory mapped windows and only ever
+// appended to:
+//   header   magic, version, index interval, start state, head position,
+//            tape length, position of the first cell and the starting
+//            tape (two bytes a cell)
+//   records  transition id, overwritten symbol, head move, as varints.
+//            A sweep is one record whose head move is the whole distance.
+//   index    (first step, file offset, head position) of the record
+//            holding every interval'th step
+//   footer   index offset, index entries, steps, magic
+public class TraceRecorder implements StepRecorder, Closeable {
+    static final long MAGIC = 0x5354454D54524331L;   // "STEMTRC1"
+    static final int VERSION = 1;
+    static final int DEFAULT_INTERVAL = 4096;
+
+    // Size of each mapped window
+    private static final int WINDOW = 1 << 24;
+
+    private final CompiledMachine machine;
+    private final int interval;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    // Index entries, three longs each
+    private long[] index = new long[3 * 64];
+    private int indexEntries;
+
+    private long steps;
+    private long nextIndexed;
+    private IOException failure;
+    private boolean closed;
+
+    public TraceRecorder(File out, CompiledMachine machine, Tape tape, int startState) throws IOException {
+        this(out, machine, tape, startState, DEFAULT_INTERVAL);
+    }
+
+    public TraceRecorder(File out, CompiledMachine machine, Tape tape, int startState, int interval) throws IOException {
+        if (interval < 1)
+            throw new IllegalArgumentException("Index interval must be at least 1");
+        this.machine = machine;
+        this.interval = interval;
+        this.file = new RandomAccessFile(out, "rw");
+        this.file.setLength(0);
+        this.channel = file.getChannel();
+        map(0);
+
+        putLong(MAGIC);
+        putInt(VERSION);
+        putInt(interval);
+        putInt(startState);
+        putInt(tape.getTapeHead() - tape.getOrigin());
+        putInt(tape.getSize());
+        putInt(-tape.getOrigin());
+        for (int i = 0; i < tape.getSize(); i++) {
+            char c = tape.charAt(i);
+            put((byte) (c >>> 8));
+            put((byte) c);
+        }
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    // Errors writing the file are kept here rather than thrown into the
+    // run loop, close() throws them
+    @Override
+    public void record(long step, int state, int transition, char read, int position, int repeat) {
+        if (failure != null || closed)
+            return;
+        try {
+            if (steps + repeat > nextIndexed) {
+                addIndex(steps, offset(), position);
+                nextIndexed = ((steps + repeat - 1) / interval + 1) * interval;
+            }
+            putVarint(transition);
+            putVarint(read);
+            long delta = (long) machine.move(transition) * repeat;
+            putVarint((delta << 1) ^ (delta >> 63));
+            steps += repeat;
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            long end = offset();
+            window.force();
+            window = null;
+
+            ByteBuffer footer = ByteBuffer.allocate(indexEntries * 24 + 32);
+            for (int i = 0; i < indexEntries * 3; i++)
+                footer.putLong(index[i]);
+            footer.putLong(end);
+            footer.putLong(indexEntries);
+            footer.putLong(steps);
+            footer.putLong(MAGIC);
+            footer.flip();
+
+            channel.truncate(end);
+            channel.position(end);
+            while (footer.hasRemaining())
+                channel.write(footer);
+        } finally {
+            file.close();
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    private void addIndex(long step, long offset, long position) {
+        if (indexEntries * 3 == index.length)
+            index = java.util.Arrays.copyOf(index, index.length * 2);
+        index[indexEntries * 3] = step;
+        index[indexEntries * 3 + 1] = offset;
+        index[indexEntries * 3 + 2] = position;
+        indexEntries++;
+    }
+
+    private long offset() {
+        return windowStart + window.position();
+    }
+
+    private void map(long start) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_WRITE, start, WINDOW);
+        windowStart = start;
+    }
+
+    private void put(byte b) throws IOException {
+        if (!window.hasRemaining())
+            map(windowStart + WINDOW);
+        window.put(b);
+    }
+
+    private void putInt(int v) throws IOException {
+        for (int shift = 24; shift >= 0; shift -= 8)
+            put((byte) (v >>> shift));
+    }
+
+    private void putLong(long v) throws IOException {
+        for (int shift = 56; shift >= 0; shift -= 8)
+            put((byte) (v >>> shift));
+    }
+
+    // Seven bits a byte, high bit set on all but the last
+    private void putVarint(long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        put((byte) v);
+    }
+}
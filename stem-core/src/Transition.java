@@ -0,0 +1,156 @@
+/*
+ *     Simple Turing machine EMulator (STEM)
+ *     Copyright (C) 2018  Sam MacLean,  Joel Kovalcson, Dakota Sanders, Matt Matto
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ */
+
+import java.util.Arrays;
+
+class Transition {
+	// The editor's Path this transition is drawn on, never looked at here
+	private Object view;
+	private State toState;
+	private State fromState;
+	private char readChar;
+	private char writeChar;
+	private Direction moveDirection;
+
+	// Reads, writes and moves on the tapes after the first of a k-tape
+	// machine. Empty for single-tape transitions, which read '~', write '~'
+	// and stay on every other tape.
+	private char[] moreRead = new char[0];
+	private char[] moreWrite = new char[0];
+	private Direction[] moreMove = new Direction[0];
+
+	public enum Direction{
+		LEFT, RIGHT, STAY
+	}
+
+	public Transition(){ }
+
+	public Transition(State toState, State fromState, char readChar, char writeChar, Direction moveDirection){
+		this.toState = toState;
+		this.fromState = fromState;
+		this.readChar = readChar;
+		this.writeChar = writeChar;
+		this.moveDirection = moveDirection;
+	}
+
+	public State getToState() {
+		return toState;
+	}
+	
+	public void setToState(State toState) {
+		this.toState = toState;
+	}
+	
+	public State getFromState() {
+		return fromState;
+	}
+	
+	public void setFromState(State fromState) {
+		this.fromState = fromState;
+	}
+	
+	public char getReadChar() {
+		return readChar;
+	}
+	
+	public void setReadChar(char readChar) {
+		this.readChar = readChar;
+	}
+	
+	public char getWriteChar() {
+		return writeChar;
+	}
+	
+	public void setWriteChar(char writeChar) {
+		this.writeChar = writeChar;
+	}
+	
+	public Direction getMoveDirection(){
+		return moveDirection;
+	}
+	
+	public void setMoveDirection(Direction moveDirection){
+		this.moveDirection = moveDirection;
+	}
+
+	// Number of tapes this transition says anything about, at least 1
+	public int getTapeCount(){
+		return 1 + moreRead.length;
+	}
+
+	public char getReadChar(int tape){
+		if(tape == 0)
+			return readChar;
+		return (tape <= moreRead.length) ? moreRead[tape - 1] : '~';
+	}
+
+	public char getWriteChar(int tape){
+		if(tape == 0)
+			return writeChar;
+		return (tape <= moreWrite.length) ? moreWrite[tape - 1] : '~';
+	}
+
+	public Direction getMoveDirection(int tape){
+		if(tape == 0)
+			return moveDirection;
+		return (tape <= moreMove.length) ? moreMove[tape - 1] : Direction.STAY;
+	}
+
+	// Set what happens on tapes 1 .. k-1, one entry per tape in each array
+	public void setMoreTapes(char[] read, char[] write, Direction[] move){
+		if(read.length != write.length || read.length != move.length)
+			throw new IllegalArgumentException("Every tape needs a read, write and move");
+		this.moreRead = read.clone();
+		this.moreWrite = write.clone();
+		this.moreMove = move.clone();
+	}
+
+	// Text drawn on the path, "a ; b ; R" or for k tapes "a,c ; b,d ; R,S"
+	public String label(){
+		StringBuilder read = new StringBuilder();
+		StringBuilder write = new StringBuilder();
+		StringBuilder move = new StringBuilder();
+		for(int i = 0; i < getTapeCount(); i++){
+			if(i > 0){
+				read.append(',');
+				write.append(',');
+				move.append(',');
+			}
+			read.append(getReadChar(i) == ' ' ? '☐' : getReadChar(i));
+			write.append(getWriteChar(i) == ' ' ? '☐' : getWriteChar(i));
+			move.append(getMoveDirection(i).toString().charAt(0));
+		}
+		return read + " ; " + write + " ; " + move;
+	}
+
+	public void setView(Object view){
+		this.view = view;
+	}
+
+	public Object getView(){
+		return view;
+	}
+
+	public boolean compareTo(Transition t){
+		return (t.fromState == fromState)
+				&&(t.toState == toState)
+				&&(t.readChar == readChar)
+				&&(t.writeChar == writeChar)
+				&&(t.moveDirection == moveDirection)
+				&& Arrays.equals(t.moreRead, moreRead)
+				&& Arrays.equals(t.moreWrite, moreWrite)
+				&& Arrays.equals(t.moreMove, moreMove);
+	}
+}